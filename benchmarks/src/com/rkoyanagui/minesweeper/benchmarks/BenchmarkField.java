@@ -0,0 +1,57 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import java.util.SplittableRandom;
+
+// Opens up the protected parts of Field that the benchmarks time on their own.
+public class BenchmarkField extends Field
+{
+  public BenchmarkField(int width, int height, int mineCount, long seed)
+  {
+    super(width, height, mineCount, new SplittableRandom(seed));
+  }
+
+  @Override
+  public boolean isMinefieldCleared()
+  {
+    return super.isMinefieldCleared();
+  }
+
+  @Override
+  public int uncover(int x, int y)
+  {
+    return super.uncover(x, y);
+  }
+
+  @Override
+  public boolean isNextLayoutReady()
+  {
+    return super.isNextLayoutReady();
+  }
+
+  // Plays every opening on the board and returns the index of the one that revealed the most
+  // cells, then restores the original layout.
+  public int largestOpening()
+  {
+    long seed = getSeed();
+    int best = -1;
+    int bestSize = 0;
+    for (int index = 0; index < getWidth() * getHeight(); index++)
+    {
+      int x = index % getWidth();
+      int y = index / getWidth();
+      if (getSquare(x, y).isMined() || getSquare(x, y).surroundingMineCount() > 0)
+      {
+        continue;
+      }
+      int revealed = uncover(x, y);
+      if (revealed > bestSize)
+      {
+        best = index;
+        bestSize = revealed;
+      }
+    }
+    reset(seed);
+    return best;
+  }
+}
@@ -0,0 +1,27 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public abstract class BoardParameters
+{
+  @Param({"30x16", "100x100", "1000x1000"})
+  public String size;
+
+  @Param({"0.12", "0.2"})
+  public double density;
+
+  protected int width;
+  protected int height;
+  protected int mineCount;
+
+  protected void parse()
+  {
+    String[] dimensions = size.split("x");
+    width = Integer.parseInt(dimensions[0]);
+    height = Integer.parseInt(dimensions[1]);
+    mineCount = (int) (width * height * density);
+  }
+}
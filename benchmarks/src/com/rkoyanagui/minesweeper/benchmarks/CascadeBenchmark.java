@@ -0,0 +1,72 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Times the largest opening on the board, with no listeners, one FieldObserver, or a legacy
+// SquareObserver on every cell, which is what observer fan-out costs a cascade.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CascadeBenchmark extends BoardParameters
+{
+  public enum Listeners
+  {
+    NONE, FIELD, SQUARE
+  }
+
+  @Param({"NONE", "FIELD", "SQUARE"})
+  public Listeners listeners;
+
+  private BenchmarkField field;
+  private long seed;
+  private int openingX;
+  private int openingY;
+
+  @Setup(Level.Trial)
+  public void setup(Blackhole blackhole)
+  {
+    parse();
+    field = new BenchmarkField(width, height, mineCount, 42);
+    seed = field.getSeed();
+    int opening = field.largestOpening();
+    openingX = opening % width;
+    openingY = opening / width;
+    switch (listeners)
+    {
+      case FIELD -> field.registerFieldObserver(delta -> blackhole.consume(delta));
+      case SQUARE -> field.forEach(s -> s.registerObserver((square, event) ->
+          blackhole.consume(event)));
+      default ->
+      {
+      }
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void restoreLayout()
+  {
+    field.reset(seed);
+  }
+
+  @Benchmark
+  public int cascade()
+  {
+    return field.uncover(openingX, openingY);
+  }
+}
@@ -0,0 +1,92 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.ConcurrentField;
+import com.rkoyanagui.minesweeper.model.Move;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Clears one large ConcurrentField with 1, 2, 4... player threads up to the number of cores, each
+// uncovering its share of the safe squares in random order, and prints squares revealed per
+// second for each, to check that players on one board scale.
+public class ConcurrentScaling
+{
+  private static final int SIZE = 2000;
+  private static final int MINES = SIZE * SIZE * 15 / 100;
+
+  public static void main(String[] args) throws Exception
+  {
+    int cores = Runtime.getRuntime().availableProcessors();
+    // Warms up the field before anything is measured.
+    clear(1);
+    double base = 0;
+    for (int threads = 1; threads <= cores; threads *= 2)
+    {
+      double rate = clear(threads);
+      if (threads == 1)
+      {
+        base = rate;
+      }
+      System.out.printf("%d threads: %,.0f squares/s (x%.2f)%n", threads, rate, rate / base);
+    }
+  }
+
+  private static double clear(int threads) throws Exception
+  {
+    ConcurrentField field = new ConcurrentField(SIZE, SIZE, MINES, new SplittableRandom(42));
+    List<List<Move>> shares = new ArrayList<>();
+    for (int t = 0; t < threads; t++)
+    {
+      shares.add(new ArrayList<>());
+    }
+    SplittableRandom random = new SplittableRandom(7);
+    for (int y = 0; y < SIZE; y++)
+    {
+      for (int x = 0; x < SIZE; x++)
+      {
+        if (!field.isMined(x, y))
+        {
+          shares.get(random.nextInt(threads)).add(Move.uncover(x, y));
+        }
+      }
+    }
+    for (List<Move> share : shares)
+    {
+      for (int i = share.size() - 1; i > 0; i--)
+      {
+        share.set(i, share.set(random.nextInt(i + 1), share.get(i)));
+      }
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    CyclicBarrier start = new CyclicBarrier(threads + 1);
+    List<Future<Long>> revealed = new ArrayList<>();
+    for (List<Move> share : shares)
+    {
+      revealed.add(pool.submit(() ->
+      {
+        start.await();
+        long cells = 0;
+        for (Move move : share)
+        {
+          cells += field.play(move).revealed();
+        }
+        return cells;
+      }));
+    }
+    start.await();
+    long begin = System.nanoTime();
+    long cells = 0;
+    for (Future<Long> future : revealed)
+    {
+      cells += future.get();
+    }
+    long nanos = System.nanoTime() - begin;
+    pool.shutdown();
+    return cells * 1e9 / nanos;
+  }
+}
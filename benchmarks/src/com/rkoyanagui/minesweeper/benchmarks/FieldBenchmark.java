@@ -0,0 +1,51 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldBenchmark extends BoardParameters
+{
+  private BenchmarkField field;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    parse();
+    field = new BenchmarkField(width, height, mineCount, 42);
+  }
+
+  @Benchmark
+  public Field construct()
+  {
+    return new Field(width, height, mineCount);
+  }
+
+  @Benchmark
+  public void reset()
+  {
+    field.reset();
+  }
+
+  @Benchmark
+  public boolean isMinefieldCleared()
+  {
+    return field.isMinefieldCleared();
+  }
+}
@@ -0,0 +1,157 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.host.GameHost;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Opens SESSIONS connections to a GameHost, each with an expert game, and reports the heap each
+// session costs while active and once parked, and the latency of UNCOVER and FLAG commands sent
+// by CLIENT_THREADS threads round-robin over the sessions. Clients run in the same JVM, so the
+// heap figures include the client end of each socket and are an upper bound.
+//
+//   java -cp benchmarks/target/benchmarks.jar com.rkoyanagui.minesweeper.benchmarks.HostLoad \
+//       [sessions] [commands]
+public class HostLoad
+{
+  private static final int CLIENT_THREADS = 8;
+  private static final Duration PARK_AFTER = Duration.ofSeconds(2);
+
+  public static void main(String[] args) throws Exception
+  {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+    int commands = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+    int cores = Runtime.getRuntime().availableProcessors();
+    ExecutorService workers = Executors.newFixedThreadPool(cores);
+    try (GameHost host = new GameHost(0, workers, PARK_AFTER).start())
+    {
+      InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+          host.getPort());
+      ByteBuffer reply = ByteBuffer.allocate(256);
+      long before = usedHeap();
+      List<SocketChannel> clients = new ArrayList<>(sessions);
+      for (int i = 0; i < sessions; i++)
+      {
+        SocketChannel client = SocketChannel.open(address);
+        send(client, "NEW 30 16 99 " + i, reply);
+        clients.add(client);
+      }
+      long active = usedHeap() - before;
+      report("active", sessions, active);
+
+      // Warms up, then measures.
+      measure(clients, commands / 4);
+      long[] latencies = measure(clients, commands);
+      Arrays.sort(latencies);
+      System.out.printf("%,d commands: p50 %,d us, p99 %,d us, p99.9 %,d us, max %,d us%n",
+          latencies.length, percentile(latencies, 0.50), percentile(latencies, 0.99),
+          percentile(latencies, 0.999), latencies[latencies.length - 1] / 1000);
+
+      Thread.sleep(PARK_AFTER.toMillis() * 3);
+      report("parked", sessions, usedHeap() - before);
+      for (SocketChannel client : clients)
+      {
+        client.close();
+      }
+    }
+    finally
+    {
+      workers.shutdown();
+    }
+  }
+
+  // Each client thread takes every CLIENT_THREADS-th session and sends one command at a time.
+  private static long[] measure(List<SocketChannel> clients, int commands) throws Exception
+  {
+    ExecutorService threads = Executors.newFixedThreadPool(CLIENT_THREADS);
+    List<Future<long[]>> results = new ArrayList<>();
+    for (int t = 0; t < CLIENT_THREADS; t++)
+    {
+      int first = t;
+      results.add(threads.submit(() ->
+      {
+        SplittableRandom random = new SplittableRandom(first);
+        ByteBuffer reply = ByteBuffer.allocate(256);
+        long[] nanos = new long[commands / CLIENT_THREADS];
+        int session = first;
+        for (int i = 0; i < nanos.length; i++)
+        {
+          String command = (random.nextInt(4) == 0 ? "FLAG " : "UNCOVER ")
+              + random.nextInt(30) + " " + random.nextInt(16);
+          long start = System.nanoTime();
+          send(clients.get(session), command, reply);
+          nanos[i] = System.nanoTime() - start;
+          session += CLIENT_THREADS;
+          if (session >= clients.size())
+          {
+            session = first;
+          }
+        }
+        return nanos;
+      }));
+    }
+    long[] all = new long[0];
+    for (Future<long[]> result : results)
+    {
+      long[] nanos = result.get();
+      int offset = all.length;
+      all = Arrays.copyOf(all, offset + nanos.length);
+      System.arraycopy(nanos, 0, all, offset, nanos.length);
+    }
+    threads.shutdown();
+    return all;
+  }
+
+  // Writes the command and reads up to the end of its reply line.
+  private static void send(SocketChannel client, String command, ByteBuffer reply)
+      throws IOException
+  {
+    ByteBuffer bytes = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.US_ASCII));
+    while (bytes.hasRemaining())
+    {
+      client.write(bytes);
+    }
+    reply.clear();
+    while (reply.position() == 0 || reply.get(reply.position() - 1) != '\n')
+    {
+      if (client.read(reply) < 0)
+      {
+        throw new EOFException("Host closed the connection");
+      }
+    }
+  }
+
+  private static long percentile(long[] sorted, double fraction)
+  {
+    return sorted[(int) Math.min(sorted.length - 1, sorted.length * fraction)] / 1000;
+  }
+
+  private static void report(String state, int sessions, long bytes)
+  {
+    double perSession = (double) bytes / sessions;
+    System.out.printf("%s: %,.0f bytes/session, %,.0f sessions/GB%n",
+        state, perSession, (1L << 30) / perSession);
+  }
+
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++)
+    {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,64 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// The objects the field was made of before cells were packed into a Board: a list of squares,
+// each with its coordinates, three flags, a list of its neighbours and a set of observers that
+// holds the field. Only the layout is kept, so that MemoryFootprint can measure what it retains.
+// The old field found neighbours by comparing every pair of squares; they are wired from
+// coordinates here, which builds the same lists without taking quadratic time.
+class LegacyField
+{
+  private final List<Square> squares;
+
+  LegacyField(int width, int height)
+  {
+    this.squares = new ArrayList<>(width * height);
+    for (int y = 0; y < height; y++)
+    {
+      for (int x = 0; x < width; x++)
+      {
+        Square square = new Square(x, y);
+        square.observers.add(this);
+        squares.add(square);
+      }
+    }
+    for (Square square : squares)
+    {
+      for (int dy = -1; dy <= 1; dy++)
+      {
+        for (int dx = -1; dx <= 1; dx++)
+        {
+          int nx = square.x + dx;
+          int ny = square.y + dy;
+          if ((dx != 0 || dy != 0) && nx >= 0 && nx < width && ny >= 0 && ny < height)
+          {
+            square.neighbours.add(squares.get(ny * width + nx));
+          }
+        }
+      }
+    }
+  }
+
+  private static class Square
+  {
+    private final int x;
+    private final int y;
+    private boolean mined;
+    private boolean flagged;
+    private boolean exposed;
+    private final List<Square> neighbours;
+    private final Set<Object> observers;
+
+    Square(int x, int y)
+    {
+      this.x = x;
+      this.y = y;
+      this.neighbours = new ArrayList<>(8);
+      this.observers = new HashSet<>();
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import java.lang.ref.Reference;
+import java.util.function.Supplier;
+
+// Prints the retained heap of the old square-per-cell layout (LegacyField) next to the packed
+// Field at each size. The old layout needs more than 7 GB at 5000x5000, so give the JVM a large
+// enough heap; a size that does not fit is reported as such.
+public class MemoryFootprint
+{
+  private static final int[][] SIZES = { {30, 16}, {1000, 1000}, {5000, 5000} };
+
+  public static void main(String[] args)
+  {
+    // Loads the model classes so that they don't count towards the first board.
+    Reference.reachabilityFence(new Field(2, 2, 0));
+    Reference.reachabilityFence(new LegacyField(2, 2));
+    for (int[] size : SIZES)
+    {
+      int width = size[0];
+      int height = size[1];
+      // Mines don't change the footprint, so none are placed.
+      measure("squares", width, height, () -> new LegacyField(width, height));
+      measure("packed", width, height, () -> new Field(width, height, 0));
+    }
+  }
+
+  private static void measure(String layout, int width, int height, Supplier<Object> build)
+  {
+    long before = usedHeap();
+    Object field;
+    try
+    {
+      field = build.get();
+    }
+    catch (OutOfMemoryError e)
+    {
+      System.out.printf("%dx%d %s: does not fit in a %,d byte heap%n",
+          width, height, layout, Runtime.getRuntime().maxMemory());
+      return;
+    }
+    long after = usedHeap();
+    long bytes = after - before;
+    System.out.printf("%dx%d %s: %,d bytes (%.2f bytes/cell)%n",
+        width, height, layout, bytes, (double) bytes / ((long) width * height));
+    Reference.reachabilityFence(field);
+  }
+
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++)
+    {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
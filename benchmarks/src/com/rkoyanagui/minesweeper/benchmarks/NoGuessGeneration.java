@@ -0,0 +1,55 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.solver.NoGuessGenerator;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Generates no-guess boards at the three classic sizes, each from a random first click, and prints
+// the median and p99 time per board and how many candidates each took on average.
+public class NoGuessGeneration
+{
+  private static final int BOARDS = 200;
+  private static final int[][] SIZES = { { 9, 9, 10 }, { 16, 16, 40 }, { 30, 16, 99 } };
+
+  public static void main(String[] args)
+  {
+    // Warms up the solver and the field before anything is measured.
+    generate(16, 16, 40);
+    for (int[] size : SIZES)
+    {
+      NoGuessGenerator generator = new NoGuessGenerator(size[0], size[1], size[2], 42);
+      long[] nanos = generate(generator, size[0], size[1]);
+      Arrays.sort(nanos);
+      System.out.printf("%dx%d, %d mines: p50 %,d us, p99 %,d us, max %,d us, %,.1f candidates"
+          + " per board%n", size[0], size[1], size[2], percentile(nanos, 0.50),
+          percentile(nanos, 0.99), nanos[nanos.length - 1] / 1000,
+          (double) generator.getCandidates() / BOARDS);
+    }
+  }
+
+  private static void generate(int width, int height, int mineCount)
+  {
+    generate(new NoGuessGenerator(width, height, mineCount, 0), width, height);
+  }
+
+  // The time each of BOARDS boards took, from random first clicks.
+  private static long[] generate(NoGuessGenerator generator, int width, int height)
+  {
+    SplittableRandom random = new SplittableRandom(7);
+    long[] nanos = new long[BOARDS];
+    for (int board = 0; board < BOARDS; board++)
+    {
+      int x = random.nextInt(width);
+      int y = random.nextInt(height);
+      long start = System.nanoTime();
+      generator.generate(x, y);
+      nanos[board] = System.nanoTime() - start;
+    }
+    return nanos;
+  }
+
+  private static long percentile(long[] sorted, double fraction)
+  {
+    return sorted[(int) Math.min(sorted.length - 1, sorted.length * fraction)] / 1000;
+  }
+}
@@ -0,0 +1,41 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times laying a new set of mines: a reset of a field nobody played, which is clearing the spare
+// layout, placing the mines and swapping it in.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark extends BoardParameters
+{
+  private BenchmarkField field;
+  private long seed;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    parse();
+    field = new BenchmarkField(width, height, mineCount, 42);
+  }
+
+  @Benchmark
+  public void placeMines()
+  {
+    field.reset(++seed);
+  }
+}
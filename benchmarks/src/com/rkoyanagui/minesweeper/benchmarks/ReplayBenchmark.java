@@ -0,0 +1,76 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.journal.JournalReplay;
+import com.rkoyanagui.minesweeper.journal.MoveJournal;
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Clock;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Replays a journal of a million moves from its start; the score is moves per second. The moves
+// flag random cells and uncover random safe ones, so the game runs to the end of the journal.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark
+{
+  private static final int MOVES = 1_000_000;
+
+  private JournalReplay replay;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException
+  {
+    Field field = new Field(1000, 1000, 120_000, new SplittableRandom(42));
+    SplittableRandom random = new SplittableRandom(43);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (MoveJournal journal = new MoveJournal(field, Channels.newChannel(out), Clock.systemUTC()))
+    {
+      int moves = 0;
+      while (moves < MOVES)
+      {
+        int x = random.nextInt(1000);
+        int y = random.nextInt(1000);
+        if (random.nextBoolean())
+        {
+          journal.play(Move.flag(x, y));
+          moves++;
+        }
+        else if (field.getSquare(x, y).isNotMined() && field.getSquare(x, y).isNotFlagged())
+        {
+          journal.play(Move.uncover(x, y));
+          moves++;
+        }
+      }
+    }
+    replay = JournalReplay.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+        Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MOVES)
+  public Field replayAll()
+  {
+    return replay.replay();
+  }
+}
@@ -0,0 +1,58 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times starting a new game after a short one, with the layout built by reset() itself and with
+// it prepared on the common pool while the last game was played.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResetBenchmark extends BoardParameters
+{
+  @Param({"false", "true"})
+  public boolean prepared;
+
+  private BenchmarkField field;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    parse();
+    field = new BenchmarkField(width, height, mineCount, 42);
+    field.setLayoutExecutor(prepared ? ForkJoinPool.commonPool() : null);
+  }
+
+  // A game that ends on its first move, and a next layout that is ready as it would be after
+  // any game that lasts longer than it takes to build.
+  @Setup(Level.Invocation)
+  public void play()
+  {
+    field.uncover(width / 2, height / 2);
+    while (prepared && !field.isNextLayoutReady())
+    {
+      Thread.onSpinWait();
+    }
+  }
+
+  @Benchmark
+  public void reset()
+  {
+    field.reset();
+  }
+}
@@ -0,0 +1,33 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.simulation.SimulationResult;
+import com.rkoyanagui.minesweeper.simulation.SimulationRunner;
+import java.util.concurrent.ForkJoinPool;
+
+// Plays the same batch of expert games on pools of 1, 2, 4... threads up to the number of cores
+// and prints games/sec for each, to check that the runner scales with cores.
+public class SimulationScaling
+{
+  private static final int GAMES = 20_000;
+
+  public static void main(String[] args)
+  {
+    int cores = Runtime.getRuntime().availableProcessors();
+    // Warms up the solver and the field before anything is measured.
+    new SimulationRunner(30, 16, 99, new ForkJoinPool(1)).run(GAMES, 0);
+    double base = 0;
+    for (int threads = 1; threads <= cores; threads *= 2)
+    {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      SimulationResult result = new SimulationRunner(30, 16, 99, pool).run(GAMES, 42);
+      pool.shutdown();
+      if (threads == 1)
+      {
+        base = result.gamesPerSecond();
+      }
+      System.out.printf("%d threads: %,.0f games/s (x%.2f), win rate %.3f, %.1f moves/game%n",
+          threads, result.gamesPerSecond(), result.gamesPerSecond() / base,
+          result.winRate(), result.averageMoves());
+    }
+  }
+}
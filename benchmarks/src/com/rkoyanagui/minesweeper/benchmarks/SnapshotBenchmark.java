@@ -0,0 +1,54 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.FieldSnapshot;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark extends BoardParameters
+{
+  private Field field;
+  private byte[] snapshot;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException
+  {
+    parse();
+    field = new BenchmarkField(width, height, mineCount, 42);
+    snapshot = write();
+  }
+
+  @Benchmark
+  public byte[] write() throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(snapshot == null ? 32 : snapshot.length);
+    FieldSnapshot.write(field, Channels.newChannel(out));
+    return out.toByteArray();
+  }
+
+  @Benchmark
+  public Field read() throws IOException
+  {
+    return FieldSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+  }
+}
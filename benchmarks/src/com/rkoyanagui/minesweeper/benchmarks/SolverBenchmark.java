@@ -0,0 +1,48 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.ResultEvent;
+import com.rkoyanagui.minesweeper.solver.Solver;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One operation is one whole game played by the solver, so the score is games per second on a
+// single core.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark extends BoardParameters
+{
+  private Field field;
+  private Solver solver;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    parse();
+    field = new Field(width, height, mineCount, new SplittableRandom(42));
+    solver = new Solver(field, new SplittableRandom(43));
+  }
+
+  @Benchmark
+  public Optional<ResultEvent> playGame()
+  {
+    field.reset();
+    return solver.solve();
+  }
+}
@@ -0,0 +1,67 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Times the largest opening of a sparse board revealed on the calling thread and with the tiled
+// reveal on the common pool, at several board sizes; at 1% mines the opening covers most of it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TiledRevealBenchmark
+{
+  @Param({"1000x1000", "3000x3000", "6000x6000"})
+  public String size;
+
+  @Param({"0.01"})
+  public double density;
+
+  @Param({"false", "true"})
+  public boolean tiled;
+
+  private BenchmarkField field;
+  private long seed;
+  private int openingX;
+  private int openingY;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    String[] dimensions = size.split("x");
+    int width = Integer.parseInt(dimensions[0]);
+    int height = Integer.parseInt(dimensions[1]);
+    field = new BenchmarkField(width, height, (int) (width * height * density), 42);
+    seed = field.getSeed();
+    int opening = field.largestOpening();
+    openingX = opening % width;
+    openingY = opening / width;
+    field.setRevealPool(tiled ? ForkJoinPool.commonPool() : null);
+  }
+
+  @Setup(Level.Invocation)
+  public void restoreLayout()
+  {
+    field.reset(seed);
+  }
+
+  @Benchmark
+  public int reveal()
+  {
+    return field.uncover(openingX, openingY);
+  }
+}
@@ -0,0 +1,49 @@
+package com.rkoyanagui.minesweeper.benchmarks;
+
+import com.rkoyanagui.minesweeper.model.Square;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UncoverBenchmark extends BoardParameters
+{
+  private BenchmarkField field;
+  private Square numbered;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    parse();
+    field = new BenchmarkField(width, height, mineCount, 42);
+    numbered = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined() && !s.isSafeNeighbourhood())
+        .findFirst()
+        .orElseThrow();
+  }
+
+  // A numbered cell opens exactly one square; covering it again keeps the board unchanged
+  // across invocations, at the cost of one extra O(1) write per call.
+  @Benchmark
+  public int singleUncover()
+  {
+    int revealed = field.uncover(numbered.getX(), numbered.getY());
+    numbered.setExposed(false);
+    return revealed;
+  }
+}
@@ -0,0 +1,366 @@
+package com.rkoyanagui.minesweeper.host;
+
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+// Hosts one game per connection on the loopback interface. The protocol is one ASCII command per
+// line and one reply line per command:
+//
+//   NEW width height mines [seed]   OK seed
+//   UNCOVER x y, FLAG x y, CHORD x y   OK applied revealed PLAYING|WON|LOST
+//   SNAPSHOT                         OK width height PLAYING|WON|LOST squares
+//   CLOSE                            OK, then the connection is closed
+//
+// and ERR with a message for anything that fails. A single selector thread does all the socket
+// I/O; commands run on the worker pool, in order within a session (see Session). Sessions with
+// no command for parkAfter are parked as snapshots until they are used again. A client that
+// sends faster than it reads its replies is not read from until it catches up.
+public class GameHost implements AutoCloseable
+{
+  static final int MAX_LINE = 256;
+  private static final long SWEEP_MILLIS = 1000;
+
+  private final ServerSocketChannel server;
+  private final Selector selector;
+  private final ExecutorService workers;
+  private final long parkAfterNanos;
+  private final Queue<Session> answered;
+  private final ByteBuffer input;
+  private final Set<Session> sessions;
+  private final Thread loop;
+  private volatile boolean closed;
+
+  public GameHost(int port) throws IOException
+  {
+    this(port, ForkJoinPool.commonPool(), Duration.ofMinutes(1));
+  }
+
+  // Binds at once; port 0 picks a free one, see getPort.
+  public GameHost(int port, ExecutorService workers, Duration parkAfter) throws IOException
+  {
+    this.selector = Selector.open();
+    this.server = ServerSocketChannel.open();
+    this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    this.server.configureBlocking(false);
+    this.server.register(selector, SelectionKey.OP_ACCEPT);
+    this.workers = workers;
+    this.parkAfterNanos = parkAfter.toNanos();
+    this.answered = new ConcurrentLinkedQueue<>();
+    this.input = ByteBuffer.allocateDirect(1 << 16);
+    this.sessions = ConcurrentHashMap.newKeySet();
+    this.loop = new Thread(() -> run(), "game-host-" + getPort());
+    this.loop.setDaemon(true);
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException
+  {
+    FieldMetrics.registerGlobal();
+    GameHost host = new GameHost(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+    host.start();
+    System.out.println("Listening on localhost:" + host.getPort());
+    host.loop.join();
+  }
+
+  public GameHost start()
+  {
+    loop.start();
+    return this;
+  }
+
+  public int getPort()
+  {
+    return server.socket().getLocalPort();
+  }
+
+  public int getSessionCount()
+  {
+    return sessions.size();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    closed = true;
+    selector.wakeup();
+    try
+    {
+      loop.join();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    finally
+    {
+      server.close();
+      selector.close();
+    }
+  }
+
+  private void run()
+  {
+    long lastSweep = System.nanoTime();
+    try
+    {
+      while (!closed)
+      {
+        selector.select(SWEEP_MILLIS);
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.selectedKeys())
+        {
+          handle(key, now);
+        }
+        selector.selectedKeys().clear();
+        Session session;
+        while ((session = answered.poll()) != null)
+        {
+          write(session, now);
+        }
+        if (now - lastSweep >= SWEEP_MILLIS * 1_000_000)
+        {
+          sweep(now);
+          lastSweep = now;
+        }
+      }
+      for (SelectionKey key : selector.keys())
+      {
+        key.channel().close();
+      }
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void handle(SelectionKey key, long now) throws IOException
+  {
+    if (!key.isValid())
+    {
+      return;
+    }
+    if (key.isAcceptable())
+    {
+      accept(now);
+      return;
+    }
+    Session session = (Session) key.attachment();
+    try
+    {
+      if (key.isReadable())
+      {
+        read(session, now);
+      }
+      if (key.isValid() && key.isWritable())
+      {
+        write(session, now);
+      }
+    }
+    catch (IOException e)
+    {
+      // The client went away mid-command; only its own session is affected.
+      disconnect(session);
+    }
+  }
+
+  private void accept(long now) throws IOException
+  {
+    SocketChannel channel;
+    while ((channel = server.accept()) != null)
+    {
+      channel.configureBlocking(false);
+      SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+      Session session = new Session(key, now);
+      key.attach(session);
+      sessions.add(session);
+    }
+  }
+
+  private void read(Session session, long now) throws IOException
+  {
+    SocketChannel channel = (SocketChannel) session.getKey().channel();
+    takeUnread(session);
+    int read = channel.read(input);
+    if (read < 0)
+    {
+      disconnect(session);
+      return;
+    }
+    input.flip();
+    split(session, now);
+  }
+
+  private void takeUnread(Session session)
+  {
+    input.clear();
+    byte[] unread = session.takeUnread();
+    if (unread != null)
+    {
+      input.put(unread);
+    }
+  }
+
+  // Splits the input into lines and queues them on the session until it is backlogged, and then
+  // stops reading from it. All sessions share the one input buffer; whatever was not queued is
+  // kept with its session.
+  private void split(Session session, long now) throws IOException
+  {
+    int start = 0;
+    int i = 0;
+    for (; i < input.limit() && !session.isBacklogged(); i++)
+    {
+      if (input.get(i) == '\n')
+      {
+        session.enqueue(line(start, i), now);
+        start = i + 1;
+      }
+    }
+    if (i == input.limit() && input.limit() - start > MAX_LINE)
+    {
+      disconnect(session);
+      return;
+    }
+    if (start < input.limit())
+    {
+      byte[] rest = new byte[input.limit() - start];
+      input.get(start, rest);
+      session.setUnread(rest);
+    }
+    if (start > 0 && session.schedule())
+    {
+      workers.execute(() -> drain(session));
+    }
+    if (session.isBacklogged())
+    {
+      SelectionKey key = session.getKey();
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+    }
+  }
+
+  private String line(int start, int end)
+  {
+    int length = end > start && input.get(end - 1) == '\r' ? end - start - 1 : end - start;
+    byte[] bytes = new byte[length];
+    input.get(start, bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  private void drain(Session session)
+  {
+    try
+    {
+      session.drain();
+    }
+    finally
+    {
+      answered.add(session);
+      selector.wakeup();
+    }
+  }
+
+  private void write(Session session, long now) throws IOException
+  {
+    SelectionKey key = session.getKey();
+    if (!key.isValid())
+    {
+      return;
+    }
+    SocketChannel channel = (SocketChannel) key.channel();
+    Queue<ByteBuffer> replies = session.getReplies();
+    // Read first: the worker sets it only after queueing the last reply, so once it is seen
+    // here that reply is among those written below. Seen only afterwards, it may not be.
+    boolean closing = session.isClosing();
+    ByteBuffer reply;
+    try
+    {
+      while ((reply = replies.peek()) != null)
+      {
+        channel.write(reply);
+        if (reply.hasRemaining())
+        {
+          key.interestOps(SelectionKey.OP_WRITE);
+          return;
+        }
+        replies.poll();
+      }
+    }
+    catch (IOException e)
+    {
+      disconnect(session);
+      return;
+    }
+    if (closing)
+    {
+      disconnect(session);
+      return;
+    }
+    if (!session.isBacklogged())
+    {
+      key.interestOps(SelectionKey.OP_READ);
+      // The client may have sent everything already and be waiting, so lines held back are
+      // queued now rather than on its next read.
+      if (session.hasUnread())
+      {
+        takeUnread(session);
+        input.flip();
+        split(session, now);
+      }
+    }
+    else
+    {
+      key.interestOps(0);
+      if (session.schedule())
+      {
+        // Commands are waiting with no worker on them, as after a batch ended by an Error.
+        workers.execute(() -> drain(session));
+      }
+    }
+  }
+
+  private void disconnect(Session session) throws IOException
+  {
+    if (session.getKey().isValid())
+    {
+      session.getKey().cancel();
+      sessions.remove(session);
+      session.getKey().channel().close();
+    }
+  }
+
+  private void sweep(long now)
+  {
+    for (Session session : sessions)
+    {
+      if (session.isIdle(now, parkAfterNanos))
+      {
+        session.requestPark();
+        if (session.schedule())
+        {
+          workers.execute(() -> drain(session));
+        }
+      }
+    }
+  }
+
+  // For tests: how many sessions hold their game as a snapshot.
+  int parkedCount()
+  {
+    return (int) sessions.stream().filter(s -> s.isParked()).count();
+  }
+}
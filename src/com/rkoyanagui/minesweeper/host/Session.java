@@ -0,0 +1,342 @@
+package com.rkoyanagui.minesweeper.host;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.FieldSnapshot;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.MoveOutcome;
+import com.rkoyanagui.minesweeper.model.ResultEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// The game behind one connection. Commands are queued by the host's selector thread and run in
+// order on the worker pool, one batch at a time, so the field only ever sees one thread at a time
+// and a session with nothing to do holds no thread. A session idle for long enough keeps its game
+// as a FieldSnapshot instead of a field. A session with replies still unsent or MAX_QUEUED
+// commands waiting is backlogged, and the host reads nothing more from it until it catches up.
+class Session
+{
+  static final long MAX_CELLS = 1 << 24;
+  static final int MAX_QUEUED = 16;
+  private static final Logger LOG = System.getLogger(Session.class.getName());
+
+  private final SelectionKey key;
+  private final Queue<String> commands;
+  private final AtomicInteger queued;
+  private final Queue<ByteBuffer> replies;
+  private final AtomicBoolean scheduled;
+  private Field field;
+  private volatile byte[] parked;
+  private byte[] unread;
+  private boolean closeRequested;
+  private volatile long lastUsed;
+  private volatile boolean resident;
+  private volatile boolean parkRequested;
+  private volatile boolean closing;
+
+  Session(SelectionKey key, long now)
+  {
+    this.key = key;
+    this.commands = new ConcurrentLinkedQueue<>();
+    this.queued = new AtomicInteger();
+    this.replies = new ConcurrentLinkedQueue<>();
+    this.scheduled = new AtomicBoolean();
+    this.lastUsed = now;
+  }
+
+  SelectionKey getKey()
+  {
+    return key;
+  }
+
+  // Called by the selector thread only: what was read but not yet queued, either a line cut off
+  // between reads or whole lines held back while the session was backlogged.
+  byte[] takeUnread()
+  {
+    byte[] rest = unread;
+    unread = null;
+    return rest;
+  }
+
+  void setUnread(byte[] rest)
+  {
+    unread = rest;
+  }
+
+  boolean hasUnread()
+  {
+    return unread != null;
+  }
+
+  void enqueue(String command, long now)
+  {
+    lastUsed = now;
+    queued.incrementAndGet();
+    commands.add(command);
+  }
+
+  boolean isBacklogged()
+  {
+    return !replies.isEmpty() || queued.get() >= MAX_QUEUED;
+  }
+
+  // True for the caller that must submit drain; false if a worker already has the session.
+  boolean schedule()
+  {
+    return scheduled.compareAndSet(false, true);
+  }
+
+  boolean isIdle(long now, long parkAfterNanos)
+  {
+    return resident && now - lastUsed > parkAfterNanos && !scheduled.get();
+  }
+
+  void requestPark()
+  {
+    parkRequested = true;
+  }
+
+  boolean isParked()
+  {
+    return parked != null;
+  }
+
+  boolean isClosing()
+  {
+    return closing;
+  }
+
+  Queue<ByteBuffer> getReplies()
+  {
+    return replies;
+  }
+
+  // Runs the queued commands on a worker thread, and returns once the queue is empty and no
+  // other command can be left behind.
+  void drain()
+  {
+    do
+    {
+      try
+      {
+        String command;
+        while ((command = commands.poll()) != null)
+        {
+          queued.decrementAndGet();
+          if (!closeRequested)
+          {
+            replies.add(
+                ByteBuffer.wrap((run(command) + "\n").getBytes(StandardCharsets.US_ASCII)));
+            // Set only once the last reply is queued, since the host closes when it sees it.
+            closing = closeRequested;
+          }
+        }
+        if (parkRequested)
+        {
+          parkRequested = false;
+          park();
+        }
+      }
+      catch (RuntimeException e)
+      {
+        // Only the park gets here, since run replies to a failed command itself. No command
+        // asked for the park, so there is no one to reply to; the game stays resident and is
+        // parked again once it is next idle.
+        LOG.log(Level.WARNING, "Could not park a session", e);
+      }
+      finally
+      {
+        // However the batch ends, an Error from a command included, or schedule would fail
+        // from now on and no later command would run.
+        scheduled.set(false);
+      }
+    }
+    while (!commands.isEmpty() && schedule());
+  }
+
+  protected String run(String command)
+  {
+    String[] words = command.trim().split(" +");
+    try
+    {
+      return switch (words[0].toUpperCase())
+      {
+        case "NEW" -> newGame(words);
+        case "UNCOVER" -> play(Move.uncover(argument(words, 1, 3), argument(words, 2, 3)));
+        case "FLAG" -> play(Move.flag(argument(words, 1, 3), argument(words, 2, 3)));
+        case "CHORD" -> play(Move.chord(argument(words, 1, 3), argument(words, 2, 3)));
+        case "SNAPSHOT" -> snapshot();
+        case "CLOSE" -> close();
+        default -> "ERR unknown command " + words[0];
+      };
+    }
+    catch (RuntimeException e)
+    {
+      return "ERR " + e.getMessage();
+    }
+  }
+
+  private String newGame(String[] words)
+  {
+    if (words.length != 4 && words.length != 5)
+    {
+      throw new IllegalArgumentException("usage: NEW width height mines [seed]");
+    }
+    int width = argument(words, 1, words.length);
+    int height = argument(words, 2, words.length);
+    int mines = argument(words, 3, words.length);
+    if ((long) width * height > MAX_CELLS)
+    {
+      throw new IllegalArgumentException("a field holds at most " + MAX_CELLS + " squares");
+    }
+    SplittableRandom random = words.length == 5
+        ? new SplittableRandom(Long.parseLong(words[4]))
+        : new SplittableRandom();
+    drop();
+    field = new Field(width, height, mines, random);
+    parked = null;
+    resident = true;
+    return "OK " + field.getSeed();
+  }
+
+  private String play(Move move)
+  {
+    MoveOutcome outcome = game().play(move);
+    return "OK " + outcome.applied() + " " + outcome.revealed() + " " + state(field);
+  }
+
+  // One character per square in row order: '#' hidden, 'F' flagged, '*' an exposed mine and
+  // '0' to '8' the count of an exposed square. Hidden mines are not given away.
+  private String snapshot()
+  {
+    Field game = game();
+    StringBuilder reply = new StringBuilder(32 + game.getWidth() * game.getHeight());
+    reply.append("OK ")
+        .append(game.getWidth())
+        .append(' ')
+        .append(game.getHeight())
+        .append(' ')
+        .append(state(game))
+        .append(' ');
+    for (int y = 0; y < game.getHeight(); y++)
+    {
+      for (int x = 0; x < game.getWidth(); x++)
+      {
+        if (game.isExposed(x, y))
+        {
+          reply.append(game.isMined(x, y) ? '*' : (char) ('0' + game.surroundingMineCount(x, y)));
+        }
+        else
+        {
+          reply.append(game.isFlagged(x, y) ? 'F' : '#');
+        }
+      }
+    }
+    return reply.toString();
+  }
+
+  private String close()
+  {
+    closeRequested = true;
+    drop();
+    field = null;
+    parked = null;
+    resident = false;
+    return "OK";
+  }
+
+  private Field game()
+  {
+    if (parked != null)
+    {
+      field = unpark();
+      resident = true;
+    }
+    if (field == null)
+    {
+      throw new IllegalStateException("no game, start one with NEW");
+    }
+    return field;
+  }
+
+  private void park()
+  {
+    if (field == null)
+    {
+      return;
+    }
+    try
+    {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      FieldSnapshot.write(field, Channels.newChannel(out));
+      parked = out.toByteArray();
+      drop();
+      field = null;
+      resident = false;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // The field counts some moves itself until its game ends, so those are added to the metrics
+  // before it is let go.
+  private void drop()
+  {
+    if (field != null)
+    {
+      field.flushMetrics();
+    }
+  }
+
+  private Field unpark()
+  {
+    try
+    {
+      Field restored = FieldSnapshot.read(Channels.newChannel(new ByteArrayInputStream(parked)));
+      parked = null;
+      return restored;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String state(Field field)
+  {
+    Optional<ResultEvent> result = field.getResult();
+    return result.map(r -> r.isVictorious() ? "WON" : "LOST").orElse("PLAYING");
+  }
+
+  private static int argument(String[] words, int position, int expectedWords)
+  {
+    if (words.length != expectedWords)
+    {
+      throw new IllegalArgumentException(
+          "usage: " + words[0].toUpperCase() + " takes " + (expectedWords - 1) + " numbers");
+    }
+    try
+    {
+      return Integer.parseInt(words[position]);
+    }
+    catch (NumberFormatException e)
+    {
+      throw new IllegalArgumentException("not a number: " + words[position]);
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package com.rkoyanagui.minesweeper.journal;
+
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.FieldSnapshot;
+import com.rkoyanagui.minesweeper.model.Move;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+// Rebuilds the games recorded by a MoveJournal. Moves are replayed onto a field with no observers,
+// as one batch, so a replay costs what the moves themselves cost. Every checkpointInterval moves
+// the state is kept as a FieldSnapshot, so jumping to a move only replays what follows the
+// closest checkpoint before it. Checkpoints are taken as replays first pass them.
+public class JournalReplay
+{
+  private static final Move.Type[] TYPES = Move.Type.values();
+  private static final int DEFAULT_CHECKPOINT_INTERVAL = 1 << 16;
+  private static final int READ_BYTES = 1 << 16;
+
+  private final int width;
+  private final int height;
+  private final int mineCount;
+  private final long seed;
+  private final long startMillis;
+  private final int checkpointInterval;
+  private final List<byte[]> checkpoints;
+  private byte[] types;
+  private int[] xs;
+  private int[] ys;
+  private long[] millis;
+  private int moveCount;
+
+  private JournalReplay(ByteBuffer header, int checkpointInterval) throws IOException
+  {
+    if (header.getInt() != MoveJournal.MAGIC)
+    {
+      throw new StreamCorruptedException("Not a move journal");
+    }
+    short version = header.getShort();
+    if (version != MoveJournal.VERSION)
+    {
+      throw new StreamCorruptedException("Unsupported journal version " + version);
+    }
+    this.width = header.getInt();
+    this.height = header.getInt();
+    this.mineCount = header.getInt();
+    this.seed = header.getLong();
+    this.startMillis = header.getLong();
+    if (width < 1)
+    {
+      throw new StreamCorruptedException("Invalid journal width " + width);
+    }
+    if (height < 1)
+    {
+      throw new StreamCorruptedException("Invalid journal height " + height);
+    }
+    if ((long) width * height > Integer.MAX_VALUE)
+    {
+      throw new StreamCorruptedException(
+          "Invalid journal size: " + width + "x" + height + " has too many squares");
+    }
+    if (mineCount < 0 || mineCount > width * height)
+    {
+      throw new StreamCorruptedException("Invalid journal mine count " + mineCount
+          + " for a " + width + "x" + height + " field");
+    }
+    this.checkpointInterval = checkpointInterval;
+    this.checkpoints = new ArrayList<>();
+    this.types = new byte[1024];
+    this.xs = new int[1024];
+    this.ys = new int[1024];
+    this.millis = new long[1024];
+  }
+
+  public static JournalReplay read(Path path) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+    {
+      return read(channel, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+  }
+
+  // A record cut short at the end, as left by a crash mid-write, is ignored.
+  public static JournalReplay read(ReadableByteChannel channel, int checkpointInterval)
+      throws IOException
+  {
+    if (checkpointInterval < 1)
+    {
+      throw new IllegalArgumentException("Checkpoint interval must be positive");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(READ_BYTES);
+    while (buffer.position() < MoveJournal.HEADER_BYTES)
+    {
+      if (channel.read(buffer) < 0)
+      {
+        throw new EOFException("Journal ended inside its header");
+      }
+    }
+    buffer.flip();
+    JournalReplay replay = new JournalReplay(buffer, checkpointInterval);
+    while (true)
+    {
+      while (buffer.remaining() >= MoveJournal.RECORD_BYTES)
+      {
+        replay.add(buffer.get(), buffer.getInt(), buffer.getInt(), buffer.getLong());
+      }
+      buffer.compact();
+      if (channel.read(buffer) < 0)
+      {
+        break;
+      }
+      buffer.flip();
+    }
+    return replay;
+  }
+
+  private void add(byte type, int x, int y, long time) throws StreamCorruptedException
+  {
+    if (type < 0 || type >= TYPES.length)
+    {
+      throw new StreamCorruptedException("Unknown move type " + type + " at move " + moveCount);
+    }
+    if (moveCount == types.length)
+    {
+      int capacity = moveCount * 2;
+      types = Arrays.copyOf(types, capacity);
+      xs = Arrays.copyOf(xs, capacity);
+      ys = Arrays.copyOf(ys, capacity);
+      millis = Arrays.copyOf(millis, capacity);
+    }
+    types[moveCount] = type;
+    xs[moveCount] = x;
+    ys[moveCount] = y;
+    millis[moveCount] = time;
+    moveCount++;
+  }
+
+  public int getMoveCount()
+  {
+    return moveCount;
+  }
+
+  public Move getMove(int n)
+  {
+    Objects.checkIndex(n, moveCount);
+    return new Move(TYPES[types[n]], xs[n], ys[n]);
+  }
+
+  public long getMillis(int n)
+  {
+    Objects.checkIndex(n, moveCount);
+    return millis[n];
+  }
+
+  public long getStartMillis()
+  {
+    return startMillis;
+  }
+
+  public long getSeed()
+  {
+    return seed;
+  }
+
+  public Field replay()
+  {
+    return fieldAt(moveCount);
+  }
+
+  // A new field in the state the game was in after its first `moves` moves.
+  public Field fieldAt(int moves)
+  {
+    Objects.checkIndex(moves, moveCount + 1);
+    int checkpoint = moves / checkpointInterval;
+    if (checkpoint >= checkpoints.size())
+    {
+      extendCheckpoints(checkpoint);
+    }
+    Field field = restore(checkpoints.get(checkpoint));
+    field.play(new MoveList(checkpoint * checkpointInterval, moves));
+    return field;
+  }
+
+  private void extendCheckpoints(int last)
+  {
+    Field field;
+    if (checkpoints.isEmpty())
+    {
+      field = new Field(width, height, mineCount, new SplittableRandom());
+      // Replays repeat games already counted when they were played.
+      field.setMetrics(FieldMetrics.NONE);
+      field.reset(seed);
+      checkpoints.add(snapshot(field));
+    }
+    else
+    {
+      field = restore(checkpoints.get(checkpoints.size() - 1));
+    }
+    while (checkpoints.size() <= last)
+    {
+      int from = (checkpoints.size() - 1) * checkpointInterval;
+      field.play(new MoveList(from, from + checkpointInterval));
+      checkpoints.add(snapshot(field));
+    }
+  }
+
+  private static byte[] snapshot(Field field)
+  {
+    try
+    {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      FieldSnapshot.write(field, Channels.newChannel(out));
+      return out.toByteArray();
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Field restore(byte[] snapshot)
+  {
+    try
+    {
+      Field field = FieldSnapshot.read(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+      field.setMetrics(FieldMetrics.NONE);
+      return field;
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // The recorded moves from `from` up to `to`, made into Move objects only as they are played.
+  private class MoveList extends AbstractList<Move> implements RandomAccess
+  {
+    private final int from;
+    private final int to;
+
+    MoveList(int from, int to)
+    {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public Move get(int index)
+    {
+      return getMove(from + index);
+    }
+
+    @Override
+    public int size()
+    {
+      return to - from;
+    }
+  }
+}
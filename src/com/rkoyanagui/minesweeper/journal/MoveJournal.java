@@ -0,0 +1,143 @@
+package com.rkoyanagui.minesweeper.journal;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.MoveOutcome;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+
+// An append-only log of one game: the field's size, mine count and seed, then every move played
+// through the journal with the time it was played. Big-endian throughout:
+//
+//   header: int magic, short version, int width, int height, int mineCount, long seed,
+//           long startMillis
+//   record: byte type (Move.Type ordinal), int x, int y, long millis
+//
+// Records are collected in a buffer and written a batch at a time. A new game needs a new journal:
+// once the field is reset, even to the same seed, play refuses moves rather than log them as part
+// of the game in the header.
+public class MoveJournal implements AutoCloseable
+{
+  static final int MAGIC = 0x4D53574A;
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 4 + 8 + 8;
+  static final int RECORD_BYTES = 1 + 4 + 4 + 8;
+  private static final int BATCH_RECORDS = 4096;
+
+  private final Field field;
+  private final long seed;
+  private final long resets;
+  private final WritableByteChannel channel;
+  private final Clock clock;
+  private final ByteBuffer batch;
+
+  public MoveJournal(Field field, WritableByteChannel channel, Clock clock) throws IOException
+  {
+    this.field = field;
+    this.seed = field.getSeed();
+    this.resets = field.getResetCount();
+    this.channel = channel;
+    this.clock = clock;
+    this.batch = ByteBuffer.allocateDirect(BATCH_RECORDS * RECORD_BYTES);
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC)
+        .putShort(VERSION)
+        .putInt(field.getWidth())
+        .putInt(field.getHeight())
+        .putInt(field.getMineCount())
+        .putLong(seed)
+        .putLong(clock.millis());
+    writeFully(header.flip());
+  }
+
+  public static MoveJournal create(Field field, Path path) throws IOException
+  {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    return new MoveJournal(field, channel, Clock.systemUTC());
+  }
+
+  public MoveOutcome play(Move... moves)
+  {
+    return play(Arrays.asList(moves));
+  }
+
+  // Records the moves before playing them, so that a move that fails part way is still logged.
+  public MoveOutcome play(List<Move> moves)
+  {
+    if (field.getResetCount() != resets)
+    {
+      throw new IllegalStateException("The field was reset since the game with seed " + seed
+          + " began; a new game needs a new journal");
+    }
+    long millis = clock.millis();
+    for (Move move : moves)
+    {
+      if (batch.remaining() < RECORD_BYTES)
+      {
+        flushBatch();
+      }
+      batch.put((byte) move.type().ordinal())
+          .putInt(move.x())
+          .putInt(move.y())
+          .putLong(millis);
+    }
+    return field.play(moves);
+  }
+
+  public Field getField()
+  {
+    return field;
+  }
+
+  public void flush() throws IOException
+  {
+    writeFully(batch.flip());
+    batch.clear();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      flush();
+      if (channel instanceof FileChannel file)
+      {
+        file.force(false);
+      }
+    }
+    finally
+    {
+      channel.close();
+    }
+  }
+
+  private void flushBatch()
+  {
+    try
+    {
+      flush();
+    }
+    catch (IOException e)
+    {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer) throws IOException
+  {
+    while (buffer.hasRemaining())
+    {
+      channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,358 @@
+package com.rkoyanagui.minesweeper.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Counters and histograms for the hot paths of Field, shared by every field that records into
+// it. All of them are LongAdders, so fields on many threads add to them without contending.
+// Even so, an uncover of one square costs about as much as two clock reads or a handful of adder
+// updates, so to keep recording on all the time each field records through a Recorder of its
+// own. It counts single-square uncovers and flags itself and adds them here every FLUSH_EVERY,
+// whenever a game ends or restarts, and when the field is dropped. Only one uncover or flag in
+// SAMPLE_RATE is timed, along with the observer dispatch that follows it; the observer fan-out is
+// a single bucket increment, so every dispatch records it. The uncover count is the count of the
+// cascade sizes, and a chord counts as one uncover of all the cells it opened. Fields no one
+// plays, such as simulations and replays, record into NONE, which keeps nothing.
+public final class FieldMetrics implements FieldMetricsMXBean
+{
+  public static final int SAMPLE_RATE = 1024;
+  // So the totals lag a field by less than this many single-square uncovers and flags.
+  public static final int FLUSH_EVERY = 64;
+  public static final FieldMetrics GLOBAL = new FieldMetrics();
+  // Its recorders neither read the clock nor count, so its totals stay zero.
+  public static final FieldMetrics NONE = new FieldMetrics(false);
+  static final String OBJECT_NAME = "com.rkoyanagui.minesweeper:type=FieldMetrics";
+
+  private final Histogram uncoverNanos;
+  private final Histogram cascadeCells;
+  private final LongAdder flags;
+  private final Histogram flagNanos;
+  private final LongAdder wins;
+  private final LongAdder losses;
+  private final Histogram resetNanos;
+  private final Histogram observerFanOut;
+  private final Histogram dispatchNanos;
+  private final boolean recording;
+
+  public FieldMetrics()
+  {
+    this(true);
+  }
+
+  private FieldMetrics(boolean recording)
+  {
+    this.uncoverNanos = new Histogram();
+    this.cascadeCells = new Histogram();
+    this.flags = new LongAdder();
+    this.flagNanos = new Histogram();
+    this.wins = new LongAdder();
+    this.losses = new LongAdder();
+    this.resetNanos = new Histogram();
+    this.observerFanOut = new Histogram();
+    this.dispatchNanos = new Histogram();
+    this.recording = recording;
+  }
+
+  // Registers the shared metrics with the platform MBean server, once however often it is called.
+  public static void registerGlobal()
+  {
+    try
+    {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      synchronized (GLOBAL)
+      {
+        if (!server.isRegistered(name))
+        {
+          server.registerMBean(GLOBAL, name);
+        }
+      }
+    }
+    catch (JMException e)
+    {
+      throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+    }
+  }
+
+  // Where one field records. Not thread-safe, like the field itself.
+  public Recorder recorder()
+  {
+    return new Recorder();
+  }
+
+  public Histogram uncoverNanos()
+  {
+    return uncoverNanos;
+  }
+
+  public Histogram cascadeCells()
+  {
+    return cascadeCells;
+  }
+
+  public Histogram flagNanos()
+  {
+    return flagNanos;
+  }
+
+  public Histogram resetNanos()
+  {
+    return resetNanos;
+  }
+
+  public Histogram observerFanOut()
+  {
+    return observerFanOut;
+  }
+
+  public Histogram dispatchNanos()
+  {
+    return dispatchNanos;
+  }
+
+  @Override
+  public long getUncovers()
+  {
+    return cascadeCells.count();
+  }
+
+  @Override
+  public long getUncoverP50Nanos()
+  {
+    return uncoverNanos.percentile(0.50);
+  }
+
+  @Override
+  public long getUncoverP99Nanos()
+  {
+    return uncoverNanos.percentile(0.99);
+  }
+
+  @Override
+  public double getCascadeMeanCells()
+  {
+    return cascadeCells.mean();
+  }
+
+  @Override
+  public long getCascadeP99Cells()
+  {
+    return cascadeCells.percentile(0.99);
+  }
+
+  @Override
+  public long getFlags()
+  {
+    return flags.sum();
+  }
+
+  @Override
+  public long getFlagP50Nanos()
+  {
+    return flagNanos.percentile(0.50);
+  }
+
+  @Override
+  public long getFlagP99Nanos()
+  {
+    return flagNanos.percentile(0.99);
+  }
+
+  @Override
+  public long getWins()
+  {
+    return wins.sum();
+  }
+
+  @Override
+  public long getLosses()
+  {
+    return losses.sum();
+  }
+
+  @Override
+  public long getResets()
+  {
+    return resetNanos.count();
+  }
+
+  @Override
+  public long getResetP50Nanos()
+  {
+    return resetNanos.percentile(0.50);
+  }
+
+  @Override
+  public long getResetP99Nanos()
+  {
+    return resetNanos.percentile(0.99);
+  }
+
+  @Override
+  public double getObserverFanOutMean()
+  {
+    return observerFanOut.mean();
+  }
+
+  @Override
+  public long getObserverFanOutP99()
+  {
+    return observerFanOut.percentile(0.99);
+  }
+
+  @Override
+  public long getDispatchP99Nanos()
+  {
+    return dispatchNanos.percentile(0.99);
+  }
+
+  @Override
+  public void clear()
+  {
+    uncoverNanos.clear();
+    cascadeCells.clear();
+    flags.reset();
+    flagNanos.clear();
+    wins.reset();
+    losses.reset();
+    resetNanos.clear();
+    observerFanOut.clear();
+    dispatchNanos.clear();
+  }
+
+  public final class Recorder
+  {
+    private final boolean recording = FieldMetrics.this.recording;
+    private int untimed;
+    // Uncovers of exactly one square and flags since the last flush; everything else is rare
+    // enough to go straight to the adders.
+    private int singles;
+    private int flagCount;
+    // Set when a game ends, since the uncover that ended it is only recorded afterwards.
+    private boolean ended;
+
+    private Recorder()
+    {
+    }
+
+    // Whether the uncover or flag about to start should be timed; call once for each.
+    public boolean isTimed()
+    {
+      if (!recording || ++untimed < SAMPLE_RATE)
+      {
+        return false;
+      }
+      untimed = 0;
+      return true;
+    }
+
+    // Whether the dispatch about to start should be timed: the first one after a timed uncover
+    // or flag, which is usually that action's own. Reading rather than counting keeps this off
+    // the common path.
+    public boolean isDispatchTimed()
+    {
+      if (!recording || untimed != 0)
+      {
+        return false;
+      }
+      untimed = 1;
+      return true;
+    }
+
+    // An uncover or chord by a player that exposed cells, cascades included; nanos is negative
+    // when it was not timed.
+    public void uncovered(int cells, long nanos)
+    {
+      if (!recording)
+      {
+        return;
+      }
+      if (cells == 1)
+      {
+        if (++singles == FLUSH_EVERY || ended)
+        {
+          flush();
+        }
+      }
+      else
+      {
+        cascadeCells.record(cells);
+      }
+      if (nanos >= 0)
+      {
+        uncoverNanos.record(nanos);
+      }
+    }
+
+    // Nanos is negative when the flag was not timed.
+    public void flagged(long nanos)
+    {
+      if (!recording)
+      {
+        return;
+      }
+      if (++flagCount == FLUSH_EVERY)
+      {
+        flush();
+      }
+      if (nanos >= 0)
+      {
+        flagNanos.record(nanos);
+      }
+    }
+
+    // A delivery of one delta to this many observer callbacks; nanos is negative when it was not
+    // timed.
+    public void dispatched(int callbacks, long nanos)
+    {
+      if (!recording)
+      {
+        return;
+      }
+      observerFanOut.record(callbacks);
+      if (nanos >= 0)
+      {
+        dispatchNanos.record(nanos);
+      }
+    }
+
+    public void finished(boolean victorious)
+    {
+      if (!recording)
+      {
+        return;
+      }
+      (victorious ? wins : losses).increment();
+      flush();
+      ended = true;
+    }
+
+    public void restarted(long nanos)
+    {
+      if (!recording)
+      {
+        return;
+      }
+      resetNanos.record(nanos);
+      flush();
+    }
+
+    // Adds what is buffered to the totals; a field that is dropped mid-game must call this or
+    // lose it.
+    public void flush()
+    {
+      if (!recording)
+      {
+        return;
+      }
+      cascadeCells.record(1, singles);
+      flags.add(flagCount);
+      singles = 0;
+      flagCount = 0;
+      ended = false;
+    }
+  }
+}
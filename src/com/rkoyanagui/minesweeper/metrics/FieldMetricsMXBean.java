@@ -0,0 +1,40 @@
+package com.rkoyanagui.minesweeper.metrics;
+
+// What FieldMetrics shows over JMX. Latencies are in nanoseconds and, like every percentile here,
+// rounded up to the next power of two less one.
+public interface FieldMetricsMXBean
+{
+  long getUncovers();
+
+  long getUncoverP50Nanos();
+
+  long getUncoverP99Nanos();
+
+  double getCascadeMeanCells();
+
+  long getCascadeP99Cells();
+
+  long getFlags();
+
+  long getFlagP50Nanos();
+
+  long getFlagP99Nanos();
+
+  long getWins();
+
+  long getLosses();
+
+  long getResets();
+
+  long getResetP50Nanos();
+
+  long getResetP99Nanos();
+
+  double getObserverFanOutMean();
+
+  long getObserverFanOutP99();
+
+  long getDispatchP99Nanos();
+
+  void clear();
+}
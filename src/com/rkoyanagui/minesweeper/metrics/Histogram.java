@@ -0,0 +1,99 @@
+package com.rkoyanagui.minesweeper.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts non-negative values in power-of-two buckets: bucket b holds the values whose highest set
+// bit is b - 1, and bucket 0 holds zero. Recording is two LongAdder updates, so any number of
+// threads can record at once without contending; percentiles are only exact to within a factor
+// of two.
+public final class Histogram
+{
+  private static final int BUCKETS = 64;
+
+  private final LongAdder[] buckets;
+  private final LongAdder sum;
+
+  public Histogram()
+  {
+    this.buckets = new LongAdder[BUCKETS];
+    for (int b = 0; b < BUCKETS; b++)
+    {
+      buckets[b] = new LongAdder();
+    }
+    this.sum = new LongAdder();
+  }
+
+  public void record(long value)
+  {
+    buckets[bucket(value)].increment();
+    sum.add(value);
+  }
+
+  // Records the same value count times.
+  public void record(long value, long count)
+  {
+    if (count > 0)
+    {
+      buckets[bucket(value)].add(count);
+      sum.add(value * count);
+    }
+  }
+
+  private static int bucket(long value)
+  {
+    return Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(value));
+  }
+
+  public long count()
+  {
+    long count = 0;
+    for (LongAdder bucket : buckets)
+    {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public long sum()
+  {
+    return sum.sum();
+  }
+
+  public double mean()
+  {
+    long count = count();
+    return count == 0 ? 0 : (double) sum() / count;
+  }
+
+  // The upper bound of the bucket holding the given fraction of the values, 0 when there are none.
+  public long percentile(double fraction)
+  {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int b = 0; b < BUCKETS; b++)
+    {
+      counts[b] = buckets[b].sum();
+      count += counts[b];
+    }
+    long rank = (long) Math.ceil(count * fraction);
+    long seen = 0;
+    for (int b = 0; b < BUCKETS; b++)
+    {
+      seen += counts[b];
+      if (seen > 0 && seen >= rank)
+      {
+        return b == 0 ? 0 : b == BUCKETS - 1 ? Long.MAX_VALUE : (1L << b) - 1;
+      }
+    }
+    return 0;
+  }
+
+  public void clear()
+  {
+    for (LongAdder bucket : buckets)
+    {
+      bucket.reset();
+    }
+    sum.reset();
+  }
+}
@@ -0,0 +1,270 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+final class Board
+{
+  // One byte per cell, indexed by y * width + x. The low nibble holds the number of mined
+  // neighbours, kept up to date whenever a mine is placed or removed.
+  static final byte ADJACENT_MINES = 0x0F;
+  static final byte MINED = 1 << 4;
+  static final byte FLAGGED = 1 << 5;
+  static final byte EXPOSED = 1 << 6;
+  static final int MAX_NEIGHBOURS = Neighbourhood.MAX_SIZE;
+
+  // Neighbourhood's offsets in row-major order, the order squares are laid out in.
+  private static final int[] DX = Neighbourhood.DX;
+  private static final int[] DY = Neighbourhood.DY;
+
+  private final int width;
+  private final int height;
+  private final int[] offsets;
+  // One bit per block of 64 cells, set once a cell in the block is exposed or flagged, so a reset
+  // only looks at the parts of the board that were played.
+  private final long[] played;
+  private byte[] cells;
+  private int hiddenSafeCount;
+  private int exposedMineCount;
+
+  // The checks every field makes of the size it is asked for.
+  static void checkDimensions(int width, int height, int mineCount)
+  {
+    if (width < 1 || height < 1)
+    {
+      throw new IllegalArgumentException("A field needs at least one square");
+    }
+    long cells = (long) width * height;
+    if (cells > Integer.MAX_VALUE)
+    {
+      throw new IllegalArgumentException(
+          "A " + width + "x" + height + " field has more squares than a field can hold");
+    }
+    if (mineCount < 0 || mineCount > cells)
+    {
+      throw new IllegalArgumentException(
+          mineCount + " mines do not fit in a " + width + "x" + height + " field");
+    }
+  }
+
+  Board(int width, int height)
+  {
+    this(width, height, new byte[width * height]);
+  }
+
+  // A board over cells that must be all zero: no mines, nothing exposed or flagged.
+  Board(int width, int height, byte[] cells)
+  {
+    this.width = width;
+    this.height = height;
+    this.cells = cells;
+    this.played = new long[(cells.length + (1 << 12) - 1) >>> 12];
+    this.offsets = new int[MAX_NEIGHBOURS];
+    for (int n = 0; n < MAX_NEIGHBOURS; n++)
+    {
+      offsets[n] = DY[n] * width + DX[n];
+    }
+    this.hiddenSafeCount = cells.length;
+    this.exposedMineCount = 0;
+  }
+
+  int size()
+  {
+    return cells.length;
+  }
+
+  int index(int x, int y)
+  {
+    return y * width + x;
+  }
+
+  int x(int index)
+  {
+    return index % width;
+  }
+
+  int y(int index)
+  {
+    return index / width;
+  }
+
+  boolean contains(int x, int y)
+  {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  int neighbours(int index, int[] into)
+  {
+    return Neighbourhood.indices(x(index), y(index), width, height, into);
+  }
+
+  int countNeighbours(int index, byte flag)
+  {
+    int x = x(index);
+    int y = y(index);
+    boolean interior = isInterior(x, y);
+    int count = 0;
+    for (int n = 0; n < MAX_NEIGHBOURS; n++)
+    {
+      if ((interior || contains(x + DX[n], y + DY[n])) && is(index + offsets[n], flag))
+      {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private boolean isInterior(int x, int y)
+  {
+    return Neighbourhood.isInterior(x, y, width, height);
+  }
+
+  boolean is(int index, byte flag)
+  {
+    return (cells[index] & flag) != 0;
+  }
+
+  void set(int index, byte flag)
+  {
+    update(index, (byte) (cells[index] | flag));
+  }
+
+  void unset(int index, byte flag)
+  {
+    update(index, (byte) (cells[index] & ~flag));
+  }
+
+  void clear(int index)
+  {
+    update(index, (byte) (cells[index] & ADJACENT_MINES));
+  }
+
+  byte state(int index)
+  {
+    return cells[index];
+  }
+
+  // The cells themselves, for code that changes many at once without going through update:
+  // ConcurrentField, which keeps its own counters, and TiledReveal, which reports what it exposed
+  // through exposedSafe.
+  byte[] cells()
+  {
+    return cells;
+  }
+
+  void exposedSafe(int count)
+  {
+    hiddenSafeCount -= count;
+  }
+
+  void markPlayed(int index)
+  {
+    played[index >>> 12] |= 1L << (index >>> 6);
+  }
+
+  // The cells exposed or flagged since the layout was loaded.
+  void forEachPlayed(IntConsumer action)
+  {
+    for (int word = 0; word < played.length; word++)
+    {
+      for (long bits = played[word]; bits != 0; bits &= bits - 1)
+      {
+        int first = ((word << 6) + Long.numberOfTrailingZeros(bits)) << 6;
+        for (int index = first; index < Math.min(first + 64, cells.length); index++)
+        {
+          if ((cells[index] & (EXPOSED | FLAGGED)) != 0)
+          {
+            action.accept(index);
+          }
+        }
+      }
+    }
+  }
+
+  // Swaps in a layout of fresh cells holding mineCount mines and returns the cells it replaces.
+  byte[] load(byte[] layout, int mineCount)
+  {
+    byte[] old = cells;
+    cells = layout;
+    hiddenSafeCount = cells.length - mineCount;
+    exposedMineCount = 0;
+    Arrays.fill(played, 0);
+    return old;
+  }
+
+  int adjacentMines(int index)
+  {
+    return cells[index] & ADJACENT_MINES;
+  }
+
+  // The field is cleared once no safe cell is hidden and no mine is exposed.
+  boolean isCleared()
+  {
+    return hiddenSafeCount == 0 && exposedMineCount == 0;
+  }
+
+  // The cells with the flag set, one bit per cell and 64 cells to a long.
+  long[] plane(byte flag)
+  {
+    long[] plane = new long[(cells.length + 63) >>> 6];
+    for (int index = 0; index < cells.length; index++)
+    {
+      if ((cells[index] & flag) != 0)
+      {
+        plane[index >>> 6] |= 1L << index;
+      }
+    }
+    return plane;
+  }
+
+  void setPlane(long[] plane, byte flag)
+  {
+    for (int word = 0; word < plane.length; word++)
+    {
+      for (long bits = plane[word]; bits != 0; bits &= bits - 1)
+      {
+        set((word << 6) + Long.numberOfTrailingZeros(bits), flag);
+      }
+    }
+  }
+
+  private void update(int index, byte state)
+  {
+    byte old = cells[index];
+    cells[index] = state;
+    if ((state & (EXPOSED | FLAGGED)) != 0)
+    {
+      markPlayed(index);
+    }
+    hiddenSafeCount += isHiddenSafe(state) - isHiddenSafe(old);
+    exposedMineCount += isExposedMine(state) - isExposedMine(old);
+    if (((old ^ state) & MINED) != 0)
+    {
+      addToNeighbours(index, (state & MINED) != 0 ? 1 : -1);
+    }
+  }
+
+  private void addToNeighbours(int index, int delta)
+  {
+    int x = x(index);
+    int y = y(index);
+    boolean interior = isInterior(x, y);
+    for (int n = 0; n < MAX_NEIGHBOURS; n++)
+    {
+      if (interior || contains(x + DX[n], y + DY[n]))
+      {
+        cells[index + offsets[n]] += delta;
+      }
+    }
+  }
+
+  private static int isHiddenSafe(byte state)
+  {
+    return (state & (MINED | EXPOSED)) == 0 ? 1 : 0;
+  }
+
+  private static int isExposedMine(byte state)
+  {
+    return (state & (MINED | EXPOSED)) == (MINED | EXPOSED) ? 1 : 0;
+  }
+}
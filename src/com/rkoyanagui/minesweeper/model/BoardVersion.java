@@ -0,0 +1,403 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+// An immutable state of a game. Playing a move returns a new version and leaves this one as it
+// was, so versions can be kept for undo or handed to bots to explore from.
+//
+// Cells use the same bits as Board and live in tiles of TILE_SIZE cells at the leaves of a
+// BRANCHES-way tree. A new version copies only the tiles it changes and the nodes above them, and
+// shares everything else with its predecessor. Within one play call the nodes it has already
+// copied are changed in place, so a cascade copies each tile it reaches once.
+public final class BoardVersion
+{
+  private static final int TILE_BITS = 6;
+  private static final int TILE_SIZE = 1 << TILE_BITS;
+  private static final int BRANCH_BITS = 5;
+  private static final int BRANCHES = 1 << BRANCH_BITS;
+
+  private final int width;
+  private final int height;
+  private final int shift;
+  private final Node root;
+  // The mines never move, so every version of a game shares the one array.
+  private final int[] mines;
+  private final int hiddenSafeCount;
+  private final int exposedMineCount;
+  private final int explodedIndex;
+  private final ResultEvent result;
+
+  private BoardVersion(int width, int height, int shift, Node root, int[] mines,
+      int hiddenSafeCount, int exposedMineCount, int explodedIndex, ResultEvent result)
+  {
+    this.width = width;
+    this.height = height;
+    this.shift = shift;
+    this.root = root;
+    this.mines = mines;
+    this.hiddenSafeCount = hiddenSafeCount;
+    this.exposedMineCount = exposedMineCount;
+    this.explodedIndex = explodedIndex;
+    this.result = result;
+  }
+
+  public static BoardVersion of(Field field)
+  {
+    Board board = field.getBoard();
+    int tiles = (board.size() + TILE_SIZE - 1) >>> TILE_BITS;
+    int shift = 0;
+    while (1L << (shift + BRANCH_BITS) < tiles)
+    {
+      shift += BRANCH_BITS;
+    }
+    Node root = build(board, shift, 0);
+    IntStack mines = new IntStack(field.getMineCount());
+    int hiddenSafe = 0;
+    int exposedMines = 0;
+    for (int index = 0; index < board.size(); index++)
+    {
+      boolean mined = board.is(index, Board.MINED);
+      boolean exposed = board.is(index, Board.EXPOSED);
+      hiddenSafe += !mined && !exposed ? 1 : 0;
+      exposedMines += mined && exposed ? 1 : 0;
+      if (mined)
+      {
+        mines.push(index);
+      }
+    }
+    int[] mineIndices = new int[mines.size()];
+    for (int i = 0; i < mineIndices.length; i++)
+    {
+      mineIndices[i] = mines.get(i);
+    }
+    return new BoardVersion(field.getWidth(), field.getHeight(), shift, root, mineIndices,
+        hiddenSafe, exposedMines, field.getExplodedIndex(), field.getResult().orElse(null));
+  }
+
+  // The subtree whose first tile is firstTile, with its children `shift` tile bits apart.
+  private static Node build(Board board, int shift, int firstTile)
+  {
+    Object[] children = new Object[BRANCHES];
+    int tiles = (board.size() + TILE_SIZE - 1) >>> TILE_BITS;
+    for (int branch = 0; branch < BRANCHES; branch++)
+    {
+      int tile = firstTile + (branch << shift);
+      if (tile >= tiles)
+      {
+        break;
+      }
+      children[branch] = shift == 0 ? tile(board, tile) : build(board, shift - BRANCH_BITS, tile);
+    }
+    return new Node(null, children, null);
+  }
+
+  private static Node tile(Board board, int tile)
+  {
+    byte[] cells = new byte[TILE_SIZE];
+    int first = tile << TILE_BITS;
+    for (int i = 0; i < TILE_SIZE && first + i < board.size(); i++)
+    {
+      cells[i] = board.state(first + i);
+    }
+    return new Node(null, null, cells);
+  }
+
+  public BoardVersion play(Move... moves)
+  {
+    return play(Arrays.asList(moves));
+  }
+
+  // Moves after the game is decided are ignored, as they are by Field.
+  public BoardVersion play(List<Move> moves)
+  {
+    Edit edit = new Edit();
+    for (Move move : moves)
+    {
+      if (edit.result != null)
+      {
+        break;
+      }
+      if (!contains(move.x(), move.y()))
+      {
+        continue;
+      }
+      int index = move.y() * width + move.x();
+      switch (move.type())
+      {
+        case UNCOVER -> edit.reveal(index);
+        case FLAG -> edit.flipFlag(index);
+        case CHORD -> edit.chord(index);
+      }
+    }
+    return edit.changed ? edit.version() : this;
+  }
+
+  public boolean isMined(int x, int y)
+  {
+    return is(checked(x, y), Board.MINED);
+  }
+
+  public boolean isFlagged(int x, int y)
+  {
+    return is(checked(x, y), Board.FLAGGED);
+  }
+
+  public boolean isExposed(int x, int y)
+  {
+    return is(checked(x, y), Board.EXPOSED);
+  }
+
+  public boolean isExploded(int x, int y)
+  {
+    return checked(x, y) == explodedIndex;
+  }
+
+  public int surroundingMineCount(int x, int y)
+  {
+    return get(root, checked(x, y)) & Board.ADJACENT_MINES;
+  }
+
+  public int getWidth()
+  {
+    return width;
+  }
+
+  public int getHeight()
+  {
+    return height;
+  }
+
+  public Optional<ResultEvent> getResult()
+  {
+    return Optional.ofNullable(result);
+  }
+
+  // How many tiles this version does not share with the other; for tests of the sharing.
+  int tilesNotSharedWith(BoardVersion other)
+  {
+    return countUnshared(root, other.root);
+  }
+
+  private static int countUnshared(Node a, Node b)
+  {
+    if (a == b)
+    {
+      return 0;
+    }
+    if (a.cells != null)
+    {
+      return 1;
+    }
+    int count = 0;
+    for (int branch = 0; branch < BRANCHES && a.children[branch] != null; branch++)
+    {
+      Node other = b == null ? null : (Node) b.children[branch];
+      count += countUnshared((Node) a.children[branch], other);
+    }
+    return count;
+  }
+
+  private int checked(int x, int y)
+  {
+    if (!contains(x, y))
+    {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the field");
+    }
+    return y * width + x;
+  }
+
+  private boolean contains(int x, int y)
+  {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  private boolean is(int index, byte flag)
+  {
+    return (get(root, index) & flag) != 0;
+  }
+
+  private byte get(Node node, int index)
+  {
+    int tile = index >>> TILE_BITS;
+    for (int level = shift; level >= 0; level -= BRANCH_BITS)
+    {
+      node = (Node) node.children[(tile >>> level) & (BRANCHES - 1)];
+    }
+    return node.cells[index & (TILE_SIZE - 1)];
+  }
+
+  // An inner node has children, a tile has cells. edit is the token of the play call that created
+  // the node, which may keep changing it; every other node is frozen. The token is a bare Object
+  // so that a node does not keep the version it was copied from, and with it the whole history,
+  // reachable.
+  private record Node(Object edit, Object[] children, byte[] cells)
+  {
+  }
+
+  // One play call: the version being built and the counters that go with it.
+  private class Edit
+  {
+    private final Object token;
+    private Node root;
+    private int hiddenSafeCount;
+    private int exposedMineCount;
+    private int explodedIndex;
+    private ResultEvent result;
+    private boolean changed;
+
+    Edit()
+    {
+      this.token = new Object();
+      this.root = BoardVersion.this.root;
+      this.hiddenSafeCount = BoardVersion.this.hiddenSafeCount;
+      this.exposedMineCount = BoardVersion.this.exposedMineCount;
+      this.explodedIndex = BoardVersion.this.explodedIndex;
+      this.result = BoardVersion.this.result;
+    }
+
+    BoardVersion version()
+    {
+      return new BoardVersion(width, height, shift, root, mines, hiddenSafeCount,
+          exposedMineCount, explodedIndex, result);
+    }
+
+    byte state(int index)
+    {
+      return get(root, index);
+    }
+
+    boolean is(int index, byte flag)
+    {
+      return (state(index) & flag) != 0;
+    }
+
+    void set(int index, byte state)
+    {
+      root = editable(root);
+      Node node = root;
+      int tile = index >>> TILE_BITS;
+      for (int level = shift; level >= 0; level -= BRANCH_BITS)
+      {
+        int branch = (tile >>> level) & (BRANCHES - 1);
+        Node child = editable((Node) node.children[branch]);
+        node.children[branch] = child;
+        node = child;
+      }
+      node.cells[index & (TILE_SIZE - 1)] = state;
+      changed = true;
+    }
+
+    private Node editable(Node node)
+    {
+      if (node.edit == token)
+      {
+        return node;
+      }
+      return node.cells != null
+          ? new Node(token, null, node.cells.clone())
+          : new Node(token, node.children.clone(), null);
+    }
+
+    void flipFlag(int index)
+    {
+      if (!is(index, Board.EXPOSED))
+      {
+        set(index, (byte) (state(index) ^ Board.FLAGGED));
+      }
+    }
+
+    void chord(int index)
+    {
+      if (!is(index, Board.EXPOSED) || is(index, Board.MINED))
+      {
+        return;
+      }
+      int[] neighbours = new int[Board.MAX_NEIGHBOURS];
+      int count = neighbours(index, neighbours);
+      int flags = 0;
+      for (int n = 0; n < count; n++)
+      {
+        flags += is(neighbours[n], Board.FLAGGED) ? 1 : 0;
+      }
+      if (flags != (state(index) & Board.ADJACENT_MINES))
+      {
+        return;
+      }
+      for (int n = 0; n < count && result == null; n++)
+      {
+        reveal(neighbours[n]);
+      }
+    }
+
+    void reveal(int index)
+    {
+      if (is(index, Board.EXPOSED) || is(index, Board.FLAGGED))
+      {
+        return;
+      }
+      expose(index);
+      if (is(index, Board.MINED))
+      {
+        explodedIndex = index;
+        result = new ResultEvent(false);
+        // Only the mines are visited, but every tile holding a hidden one is still copied.
+        for (int mine : mines)
+        {
+          if (!is(mine, Board.EXPOSED))
+          {
+            expose(mine);
+          }
+        }
+        return;
+      }
+
+      // Cells are exposed as they are discovered, so each one enters the stack at most once.
+      int[] neighbours = new int[Board.MAX_NEIGHBOURS];
+      IntStack pending = new IntStack(Board.MAX_NEIGHBOURS);
+      pending.push(index);
+      while (!pending.isEmpty())
+      {
+        int cell = pending.pop();
+        if ((state(cell) & Board.ADJACENT_MINES) > 0)
+        {
+          continue;
+        }
+        int count = neighbours(cell, neighbours);
+        for (int n = 0; n < count; n++)
+        {
+          int neighbour = neighbours[n];
+          if (!is(neighbour, Board.EXPOSED) && !is(neighbour, Board.FLAGGED))
+          {
+            expose(neighbour);
+            pending.push(neighbour);
+          }
+        }
+      }
+      if (hiddenSafeCount == 0 && exposedMineCount == 0)
+      {
+        result = new ResultEvent(true);
+      }
+    }
+
+    private void expose(int index)
+    {
+      byte state = state(index);
+      if ((state & Board.MINED) != 0)
+      {
+        exposedMineCount++;
+      }
+      else
+      {
+        hiddenSafeCount--;
+      }
+      set(index, (byte) (state | Board.EXPOSED));
+    }
+
+    private int neighbours(int index, int[] into)
+    {
+      return Neighbourhood.indices(index % width, index / width, width, height, into);
+    }
+  }
+}
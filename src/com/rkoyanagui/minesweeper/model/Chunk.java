@@ -0,0 +1,169 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.SplittableRandom;
+
+// A square block of a ChunkedField. Cells use the same bits as Board, indexed by
+// localY * SIZE + localX; edge chunks leave the cells past the field's border unused.
+final class Chunk
+{
+  static final int BITS = 6;
+  static final int SIZE = 1 << BITS;
+  static final int MASK = SIZE - 1;
+
+  final byte[] cells;
+  // Set once the player has exposed or flagged anything here; an unplayed chunk can be rebuilt
+  // from the seed, so it is dropped rather than packed when evicted.
+  boolean played;
+
+  private Chunk()
+  {
+    this.cells = new byte[SIZE * SIZE];
+  }
+
+  static int local(int x, int y)
+  {
+    return (y & MASK) * SIZE + (x & MASK);
+  }
+
+  static int mineCount(int chunkWidth, int chunkHeight, double density)
+  {
+    return (int) Math.round(density * chunkWidth * chunkHeight);
+  }
+
+  // Places the chunk's own mines and counts every cell's mined neighbours, including those in
+  // the surrounding chunks, whose layouts are regenerated from the seed.
+  static Chunk build(long seed, int cx, int cy, int width, int height, double density)
+  {
+    long[][][] layouts = new long[3][3][];
+    for (int dy = -1; dy <= 1; dy++)
+    {
+      for (int dx = -1; dx <= 1; dx++)
+      {
+        layouts[dy + 1][dx + 1] = layout(seed, cx + dx, cy + dy, width, height, density);
+      }
+    }
+    Chunk chunk = new Chunk();
+    int originX = cx << BITS;
+    int originY = cy << BITS;
+    int chunkWidth = Math.min(SIZE, width - originX);
+    int chunkHeight = Math.min(SIZE, height - originY);
+    for (int ly = 0; ly < chunkHeight; ly++)
+    {
+      for (int lx = 0; lx < chunkWidth; lx++)
+      {
+        int count = 0;
+        for (int dy = -1; dy <= 1; dy++)
+        {
+          for (int dx = -1; dx <= 1; dx++)
+          {
+            if ((dx != 0 || dy != 0) && isMined(layouts, lx + dx, ly + dy))
+            {
+              count++;
+            }
+          }
+        }
+        byte state = (byte) count;
+        if (isMined(layouts, lx, ly))
+        {
+          state |= Board.MINED;
+        }
+        chunk.cells[ly * SIZE + lx] = state;
+      }
+    }
+    return chunk;
+  }
+
+  // Rebuilds a played chunk from the seed and the bits packed when it was evicted.
+  static Chunk unpack(long seed, int cx, int cy, int width, int height, double density,
+      Packed packed)
+  {
+    Chunk chunk = build(seed, cx, cy, width, height, density);
+    for (int i = 0; i < SIZE * SIZE; i++)
+    {
+      if (isSet(packed.exposed(), i))
+      {
+        chunk.cells[i] |= Board.EXPOSED;
+      }
+      if (isSet(packed.flagged(), i))
+      {
+        chunk.cells[i] |= Board.FLAGGED;
+      }
+    }
+    chunk.played = true;
+    return chunk;
+  }
+
+  Packed pack()
+  {
+    long[] exposed = new long[SIZE];
+    long[] flagged = new long[SIZE];
+    for (int i = 0; i < SIZE * SIZE; i++)
+    {
+      if ((cells[i] & Board.EXPOSED) != 0)
+      {
+        exposed[i >> BITS] |= 1L << (i & MASK);
+      }
+      if ((cells[i] & Board.FLAGGED) != 0)
+      {
+        flagged[i >> BITS] |= 1L << (i & MASK);
+      }
+    }
+    return new Packed(exposed, flagged);
+  }
+
+  // One bit per cell for each of the two states a player can change; mines and counts come back
+  // from the seed. A quarter of the live chunk's size.
+  record Packed(long[] exposed, long[] flagged)
+  {
+  }
+
+  // The chunk's mines as one long per row, or none for chunks beyond the border. Uses Floyd's
+  // sampling like MinePlacer, seeded from the field's seed and the chunk's position only.
+  static long[] layout(long seed, int cx, int cy, int width, int height, double density)
+  {
+    long[] rows = new long[SIZE];
+    int originX = cx << BITS;
+    int originY = cy << BITS;
+    if (cx < 0 || cy < 0 || originX >= width || originY >= height)
+    {
+      return rows;
+    }
+    int chunkWidth = Math.min(SIZE, width - originX);
+    int chunkHeight = Math.min(SIZE, height - originY);
+    int cells = chunkWidth * chunkHeight;
+    SplittableRandom random = new SplittableRandom(chunkSeed(seed, cx, cy));
+    for (int j = cells - mineCount(chunkWidth, chunkHeight, density); j < cells; j++)
+    {
+      int candidate = random.nextInt(j + 1);
+      int cell = isSet(rows, candidate % chunkWidth, candidate / chunkWidth) ? j : candidate;
+      rows[cell / chunkWidth] |= 1L << (cell % chunkWidth);
+    }
+    return rows;
+  }
+
+  private static long chunkSeed(long seed, int cx, int cy)
+  {
+    long h = seed;
+    h = h * 0x9E3779B97F4A7C15L + cx;
+    h = h * 0x9E3779B97F4A7C15L + cy;
+    return h;
+  }
+
+  // Local coordinates may step one cell into a neighbouring chunk.
+  private static boolean isMined(long[][][] layouts, int lx, int ly)
+  {
+    int ox = lx < 0 ? 0 : lx >= SIZE ? 2 : 1;
+    int oy = ly < 0 ? 0 : ly >= SIZE ? 2 : 1;
+    return isSet(layouts[oy][ox], lx & MASK, ly & MASK);
+  }
+
+  private static boolean isSet(long[] rows, int x, int y)
+  {
+    return (rows[y] & 1L << x) != 0;
+  }
+
+  private static boolean isSet(long[] rows, int i)
+  {
+    return isSet(rows, i & MASK, i >> BITS);
+  }
+}
@@ -0,0 +1,670 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+// A field whose cells live in Chunk.SIZE square chunks that are only built when play reaches
+// them. A chunk's mines depend on nothing but the seed and the chunk's position, so its size is
+// bounded by int coordinates rather than by the heap. Whenever building a chunk takes the count
+// past maxLiveChunks, the least recently used ones are dropped if never played, or packed down to
+// their exposed and flagged bits otherwise; this holds during a cascade too, which is filled one
+// chunk at a time. Moves, cascades and results behave as they do on a Field.
+//
+// Deltas differ in two ways. A cascade lists its cells chunk by chunk rather than in the order a
+// Field finds them. An action that changes more than MAX_DELTA_CELLS cells is delivered in several
+// deltas, the last of which carries any result, so observers are called before the action ends
+// and must not play the field or read its cells.
+public class ChunkedField
+{
+  private static final int DEFAULT_LIVE_CHUNKS = 256;
+  static final int MAX_DELTA_CELLS = 1 << 16;
+
+  private final int width;
+  private final int height;
+  private final double density;
+  private final int maxLiveChunks;
+  private final RandomGenerator random;
+  private final LinkedHashMap<Long, Chunk> chunks;
+  private final Map<Long, Chunk.Packed> packed;
+  private final Set<PlaneObserver> planeObservers;
+  private final Set<Consumer<ResultEvent>> observers;
+  private long seed;
+  private final long mineCount;
+  private long exposedSafeCount;
+  private long lastKey;
+  private Chunk lastChunk;
+  private Changes changes;
+  private int actionDepth;
+  private boolean resultChanged;
+  private long explodedCell;
+  private ResultEvent result;
+
+  public ChunkedField(int width, int height, double density, long seed)
+  {
+    this(width, height, density, seed, DEFAULT_LIVE_CHUNKS);
+  }
+
+  public ChunkedField(int width, int height, double density, long seed, int maxLiveChunks)
+  {
+    if (width < 1 || height < 1)
+    {
+      throw new IllegalArgumentException("A field needs at least one square");
+    }
+    if (!(density >= 0 && density <= 1))
+    {
+      throw new IllegalArgumentException("Mine density must be between 0 and 1: " + density);
+    }
+    if (maxLiveChunks < 1)
+    {
+      throw new IllegalArgumentException("At least one chunk must stay live: " + maxLiveChunks);
+    }
+    this.width = width;
+    this.height = height;
+    this.density = density;
+    this.maxLiveChunks = maxLiveChunks;
+    this.random = new SplittableRandom(seed);
+    this.chunks = new LinkedHashMap<>(16, 0.75f, true);
+    this.packed = new HashMap<>();
+    this.planeObservers = new HashSet<>();
+    this.observers = new HashSet<>();
+    this.changes = new Changes();
+    this.mineCount = countMines();
+    start(seed);
+  }
+
+  // Whole chunks all hold the same number of mines, so only the ragged right and bottom edges
+  // need counting separately.
+  private long countMines()
+  {
+    long fullColumns = width >> Chunk.BITS;
+    long fullRows = height >> Chunk.BITS;
+    int lastWidth = width & Chunk.MASK;
+    int lastHeight = height & Chunk.MASK;
+    return fullColumns * fullRows * Chunk.mineCount(Chunk.SIZE, Chunk.SIZE, density)
+        + fullRows * Chunk.mineCount(lastWidth, Chunk.SIZE, density)
+        + fullColumns * Chunk.mineCount(Chunk.SIZE, lastHeight, density)
+        + Chunk.mineCount(lastWidth, lastHeight, density);
+  }
+
+  private void start(long seed)
+  {
+    this.seed = seed;
+    chunks.clear();
+    packed.clear();
+    lastKey = -1;
+    lastChunk = null;
+    exposedSafeCount = 0;
+    explodedCell = -1;
+    result = null;
+  }
+
+  public MoveOutcome play(Move... moves)
+  {
+    return play(Arrays.asList(moves));
+  }
+
+  // A single cascade can expose more cells than an int counts, so the outcome reports at most
+  // Integer.MAX_VALUE revealed.
+  public MoveOutcome play(List<Move> moves)
+  {
+    int applied = 0;
+    long revealed = 0;
+    beginAction();
+    for (Move move : moves)
+    {
+      if (result != null)
+      {
+        break;
+      }
+      long cells = switch (move.type())
+      {
+        case UNCOVER -> uncover(move.x(), move.y());
+        case FLAG -> flipFlag(move.x(), move.y()) ? 1 : 0;
+        case CHORD -> chord(move.x(), move.y());
+      };
+      if (cells > 0)
+      {
+        applied++;
+        if (move.type() != Move.Type.FLAG)
+        {
+          revealed += cells;
+        }
+      }
+    }
+    endAction();
+    return new MoveOutcome(applied, moves.size() - applied,
+        (int) Math.min(revealed, Integer.MAX_VALUE), result);
+  }
+
+  protected boolean flipFlag(int x, int y)
+  {
+    if (!contains(x, y) || is(x, y, Board.EXPOSED))
+    {
+      return false;
+    }
+    beginAction();
+    update(x, y, (byte) (state(x, y) ^ Board.FLAGGED));
+    changed(x, y, false);
+    endAction();
+    return true;
+  }
+
+  protected long uncover(int x, int y)
+  {
+    return contains(x, y) ? reveal(x, y) : 0;
+  }
+
+  protected long chord(int x, int y)
+  {
+    if (!contains(x, y) || !is(x, y, Board.EXPOSED) || is(x, y, Board.MINED))
+    {
+      return 0;
+    }
+    long[] neighbours = new long[Board.MAX_NEIGHBOURS];
+    int count = neighbours(x, y, neighbours);
+    int flags = 0;
+    for (int n = 0; n < count; n++)
+    {
+      if (is(neighbours[n], Board.FLAGGED))
+      {
+        flags++;
+      }
+    }
+    if (flags != (state(x, y) & Board.ADJACENT_MINES))
+    {
+      return 0;
+    }
+    long revealed = 0;
+    beginAction();
+    for (int n = 0; n < count && result == null; n++)
+    {
+      revealed += reveal(PlaneDelta.x(neighbours[n]), PlaneDelta.y(neighbours[n]));
+    }
+    endAction();
+    return revealed;
+  }
+
+  protected long reveal(int x, int y)
+  {
+    if (is(x, y, Board.EXPOSED) || is(x, y, Board.FLAGGED))
+    {
+      return 0;
+    }
+    beginAction();
+    if (is(x, y, Board.MINED))
+    {
+      expose(x, y);
+      explodedCell = cell(x, y);
+      changed(x, y, true);
+      endAction();
+      return 1;
+    }
+
+    // The fill works through one chunk at a time. Where it crosses into another chunk, the cell
+    // is marked in that chunk's seeds instead, and the chunk is filled from its seeds in turn, so
+    // only the chunk being filled has to be live.
+    Map<Long, long[]> seeds = new LinkedHashMap<>();
+    seed(seeds, x, y);
+    int[] pending = new int[Chunk.SIZE * Chunk.SIZE];
+    long[] neighbours = new long[Board.MAX_NEIGHBOURS];
+    long revealed = 0;
+    while (!seeds.isEmpty())
+    {
+      Iterator<Map.Entry<Long, long[]>> next = seeds.entrySet().iterator();
+      Map.Entry<Long, long[]> entry = next.next();
+      long key = entry.getKey();
+      long[] chunkSeeds = entry.getValue();
+      next.remove();
+      revealed += fill(key, chunkSeeds, seeds, pending, neighbours);
+    }
+    endAction();
+    return revealed;
+  }
+
+  // Exposes the hidden, unflagged seeds of one chunk and every cell the cascade reaches from them
+  // inside it. Seeds are never mined, since they are the start cell or the neighbours of a cell
+  // with no mines around it.
+  private long fill(long key, long[] chunkSeeds, Map<Long, long[]> seeds, int[] pending,
+      long[] neighbours)
+  {
+    int cx = PlaneDelta.x(key);
+    int cy = PlaneDelta.y(key);
+    int originX = cx << Chunk.BITS;
+    int originY = cy << Chunk.BITS;
+    Chunk chunk = chunk(originX, originY);
+    byte[] cells = chunk.cells;
+    long revealed = 0;
+    int pendingSize = 0;
+    for (int row = 0; row < Chunk.SIZE; row++)
+    {
+      for (long bits = chunkSeeds[row]; bits != 0; bits &= bits - 1)
+      {
+        int i = row << Chunk.BITS | Long.numberOfTrailingZeros(bits);
+        if ((cells[i] & (Board.EXPOSED | Board.FLAGGED)) == 0)
+        {
+          cells[i] |= Board.EXPOSED;
+          changed(originX + (i & Chunk.MASK), originY + row, false);
+          pending[pendingSize++] = i;
+          revealed++;
+        }
+      }
+    }
+    while (pendingSize > 0)
+    {
+      int i = pending[--pendingSize];
+      if ((cells[i] & Board.ADJACENT_MINES) > 0)
+      {
+        continue;
+      }
+      int count = neighbours(originX + (i & Chunk.MASK), originY + (i >> Chunk.BITS), neighbours);
+      for (int n = 0; n < count; n++)
+      {
+        int nx = PlaneDelta.x(neighbours[n]);
+        int ny = PlaneDelta.y(neighbours[n]);
+        if (nx >> Chunk.BITS != cx || ny >> Chunk.BITS != cy)
+        {
+          seed(seeds, nx, ny);
+          continue;
+        }
+        int j = Chunk.local(nx, ny);
+        if ((cells[j] & (Board.EXPOSED | Board.FLAGGED)) == 0)
+        {
+          cells[j] |= Board.EXPOSED;
+          changed(nx, ny, false);
+          pending[pendingSize++] = j;
+          revealed++;
+        }
+      }
+    }
+    if (revealed > 0)
+    {
+      chunk.played = true;
+      exposedSafeCount += revealed;
+    }
+    return revealed;
+  }
+
+  private static void seed(Map<Long, long[]> seeds, int x, int y)
+  {
+    long[] chunkSeeds = seeds.computeIfAbsent(
+        cell(x >> Chunk.BITS, y >> Chunk.BITS), k -> new long[Chunk.SIZE]);
+    chunkSeeds[y & Chunk.MASK] |= 1L << (x & Chunk.MASK);
+  }
+
+  // Only chunks that were ever built can hold a mine the player has seen around, so those are
+  // the ones whose mines are shown when the game is lost. Packed chunks have their mines laid out
+  // again from the seed and marked exposed in their bitmaps, without building them.
+  protected void revealMines()
+  {
+    for (Map.Entry<Long, Chunk> entry : chunks.entrySet())
+    {
+      int originX = PlaneDelta.x(entry.getKey()) << Chunk.BITS;
+      int originY = PlaneDelta.y(entry.getKey()) << Chunk.BITS;
+      Chunk chunk = entry.getValue();
+      for (int i = 0; i < chunk.cells.length; i++)
+      {
+        if ((chunk.cells[i] & (Board.MINED | Board.EXPOSED)) == Board.MINED)
+        {
+          chunk.cells[i] |= Board.EXPOSED;
+          chunk.played = true;
+          changed(originX + (i & Chunk.MASK), originY + (i >> Chunk.BITS), false);
+        }
+      }
+    }
+    for (Map.Entry<Long, Chunk.Packed> entry : packed.entrySet())
+    {
+      int cx = PlaneDelta.x(entry.getKey());
+      int cy = PlaneDelta.y(entry.getKey());
+      long[] mines = Chunk.layout(seed, cx, cy, width, height, density);
+      long[] exposed = entry.getValue().exposed();
+      for (int row = 0; row < Chunk.SIZE; row++)
+      {
+        long hidden = mines[row] & ~exposed[row];
+        exposed[row] |= hidden;
+        addCells(cx, cy, row, hidden);
+      }
+    }
+  }
+
+  public void reset()
+  {
+    reset(random.nextLong());
+  }
+
+  // Only the cells the player had exposed or flagged are reported, not the whole field; those
+  // in packed chunks are read straight from the bitmaps.
+  public void reset(long seed)
+  {
+    beginAction();
+    for (Map.Entry<Long, Chunk> entry : chunks.entrySet())
+    {
+      if (entry.getValue().played)
+      {
+        addPlayedCells(entry.getKey(), entry.getValue().pack());
+      }
+    }
+    for (Map.Entry<Long, Chunk.Packed> entry : packed.entrySet())
+    {
+      addPlayedCells(entry.getKey(), entry.getValue());
+    }
+    start(seed);
+    endAction();
+  }
+
+  private void addPlayedCells(long key, Chunk.Packed bits)
+  {
+    int cx = PlaneDelta.x(key);
+    int cy = PlaneDelta.y(key);
+    for (int row = 0; row < Chunk.SIZE; row++)
+    {
+      addCells(cx, cy, row, bits.exposed()[row] | bits.flagged()[row]);
+    }
+  }
+
+  // Adds the cells set in one row's bitmap of chunk (cx, cy) to the changes.
+  private void addCells(int cx, int cy, int row, long bits)
+  {
+    int originX = cx << Chunk.BITS;
+    int y = (cy << Chunk.BITS) + row;
+    for (; bits != 0; bits &= bits - 1)
+    {
+      changed(originX + Long.numberOfTrailingZeros(bits), y, false);
+    }
+  }
+
+  public void registerObserver(Consumer<ResultEvent> observer)
+  {
+    observers.add(observer);
+  }
+
+  public void registerPlaneObserver(PlaneObserver observer)
+  {
+    planeObservers.add(observer);
+  }
+
+  protected void beginAction()
+  {
+    actionDepth++;
+  }
+
+  protected void endAction()
+  {
+    settle();
+    if (--actionDepth == 0 && !changes.isEmpty())
+    {
+      publish();
+    }
+  }
+
+  // Records a changed cell, delivering the action's changes so far once there are too many to
+  // hold. The last cell is kept back, so the action's final delta is never empty and always has
+  // somewhere to carry the result.
+  private void changed(int x, int y, boolean explosion)
+  {
+    changes.add(x, y, explosion);
+    if (changes.size == MAX_DELTA_CELLS)
+    {
+      Changes done = changes;
+      changes = done.keepLast();
+      PlaneDelta delta = done.build(null);
+      planeObservers.forEach(o -> o.observe(delta));
+    }
+  }
+
+  private void settle()
+  {
+    if (result != null)
+    {
+      return;
+    }
+    if (changes.exploded)
+    {
+      result = new ResultEvent(false);
+      resultChanged = true;
+      revealMines();
+    }
+    else if (exposedSafeCount == (long) width * height - mineCount)
+    {
+      result = new ResultEvent(true);
+      resultChanged = true;
+    }
+  }
+
+  private void publish()
+  {
+    Changes done = changes;
+    changes = new Changes();
+    ResultEvent outcome = resultChanged ? result : null;
+    resultChanged = false;
+
+    PlaneDelta delta = done.build(outcome);
+    planeObservers.forEach(o -> o.observe(delta));
+    if (outcome != null)
+    {
+      observers.forEach(o -> o.accept(outcome));
+    }
+  }
+
+  // Called as a chunk is built, which makes it the most recently used, so the chunk a caller asked
+  // for is never the one evicted.
+  private void evictIdleChunks()
+  {
+    Iterator<Map.Entry<Long, Chunk>> eldest = chunks.entrySet().iterator();
+    while (chunks.size() > maxLiveChunks)
+    {
+      Map.Entry<Long, Chunk> entry = eldest.next();
+      if (entry.getValue().played)
+      {
+        packed.put(entry.getKey(), entry.getValue().pack());
+      }
+      eldest.remove();
+      lastKey = -1;
+      lastChunk = null;
+    }
+  }
+
+  public boolean isMined(int x, int y)
+  {
+    return is(checked(x, y), Board.MINED);
+  }
+
+  public boolean isFlagged(int x, int y)
+  {
+    return is(checked(x, y), Board.FLAGGED);
+  }
+
+  public boolean isExposed(int x, int y)
+  {
+    return is(checked(x, y), Board.EXPOSED);
+  }
+
+  public boolean isExploded(int x, int y)
+  {
+    return checked(x, y) == explodedCell;
+  }
+
+  public int surroundingMineCount(int x, int y)
+  {
+    return state(checked(x, y)) & Board.ADJACENT_MINES;
+  }
+
+  public int getWidth()
+  {
+    return width;
+  }
+
+  public int getHeight()
+  {
+    return height;
+  }
+
+  public double getDensity()
+  {
+    return density;
+  }
+
+  public long getMineCount()
+  {
+    return mineCount;
+  }
+
+  public long getSeed()
+  {
+    return seed;
+  }
+
+  public Optional<ResultEvent> getResult()
+  {
+    return Optional.ofNullable(result);
+  }
+
+  public int getLiveChunkCount()
+  {
+    return chunks.size();
+  }
+
+  public int getPackedChunkCount()
+  {
+    return packed.size();
+  }
+
+  private long checked(int x, int y)
+  {
+    if (!contains(x, y))
+    {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the field");
+    }
+    return cell(x, y);
+  }
+
+  private boolean contains(int x, int y)
+  {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  private static long cell(int x, int y)
+  {
+    return (long) y << 32 | x;
+  }
+
+  private int neighbours(int x, int y, long[] into)
+  {
+    return Neighbourhood.cells(x, y, width, height, into);
+  }
+
+  private boolean is(long cell, byte flag)
+  {
+    return (state(cell) & flag) != 0;
+  }
+
+  private boolean is(int x, int y, byte flag)
+  {
+    return (state(x, y) & flag) != 0;
+  }
+
+  private byte state(long cell)
+  {
+    return state(PlaneDelta.x(cell), PlaneDelta.y(cell));
+  }
+
+  private byte state(int x, int y)
+  {
+    return chunk(x, y).cells[Chunk.local(x, y)];
+  }
+
+  private void expose(int x, int y)
+  {
+    byte state = state(x, y);
+    if ((state & Board.MINED) == 0)
+    {
+      exposedSafeCount++;
+    }
+    update(x, y, (byte) (state | Board.EXPOSED));
+  }
+
+  private void update(int x, int y, byte state)
+  {
+    Chunk chunk = chunk(x, y);
+    chunk.cells[Chunk.local(x, y)] = state;
+    chunk.played = true;
+  }
+
+  private Chunk chunk(int x, int y)
+  {
+    int cx = x >> Chunk.BITS;
+    int cy = y >> Chunk.BITS;
+    long key = cell(cx, cy);
+    if (key == lastKey)
+    {
+      return lastChunk;
+    }
+    Chunk chunk = chunks.get(key);
+    if (chunk == null)
+    {
+      Chunk.Packed bits = packed.remove(key);
+      chunk = bits == null
+          ? Chunk.build(seed, cx, cy, width, height, density)
+          : Chunk.unpack(seed, cx, cy, width, height, density, bits);
+      chunks.put(key, chunk);
+      evictIdleChunks();
+    }
+    lastKey = key;
+    lastChunk = chunk;
+    return chunk;
+  }
+
+  // Collects one action's cells like FieldDeltaBuilder does for a Field.
+  private static class Changes
+  {
+    private long[] cells = new long[16];
+    private int size;
+    private int minX = Integer.MAX_VALUE;
+    private int minY = Integer.MAX_VALUE;
+    private int maxX = Integer.MIN_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+    private boolean exploded;
+
+    // A new Changes holding only this one's last cell, and whether the action exploded.
+    Changes keepLast()
+    {
+      Changes rest = new Changes();
+      long last = cells[--size];
+      rest.add(PlaneDelta.x(last), PlaneDelta.y(last), exploded);
+      return rest;
+    }
+
+    void add(int x, int y, boolean explosion)
+    {
+      if (size == cells.length)
+      {
+        cells = Arrays.copyOf(cells, size * 2);
+      }
+      cells[size++] = cell(x, y);
+      minX = Math.min(minX, x);
+      minY = Math.min(minY, y);
+      maxX = Math.max(maxX, x);
+      maxY = Math.max(maxY, y);
+      exploded |= explosion;
+    }
+
+    boolean isEmpty()
+    {
+      return size == 0;
+    }
+
+    PlaneDelta build(ResultEvent result)
+    {
+      return new PlaneDelta(Arrays.copyOf(cells, size), minX, minY, maxX, maxY, result);
+    }
+  }
+}
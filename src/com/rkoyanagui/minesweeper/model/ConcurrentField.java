@@ -0,0 +1,348 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+
+// A field any number of threads can play at once, one game per instance. Cells use Board's bits
+// and every change to one is a compare-and-set of its whole byte, so hidden to exposed and
+// hidden to flagged and back are atomic and only the thread whose CAS succeeds reports the
+// change. Overlapping cascades therefore expose each cell once.
+//
+// The first result set wins: a loss when a thread exposes a mine, or a win when the hidden safe
+// count reaches zero, and the thread that sets it is the one that delivers it. The count goes down
+// once per uncover, by the cells it exposed, so threads meet on it once per move rather than once
+// per cell, and a later mine in the same play call does not lose a game that is already won. Since
+// the count lags the cells while a cascade is still running, a mine only loses the game if a safe
+// cell is still hidden when it is hit; the game is won from the moment the last one is exposed.
+// Each play call delivers its own FieldDelta on the calling thread, so observers must be
+// thread-safe.
+public class ConcurrentField
+{
+  private static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  private final int width;
+  private final int height;
+  private final int mineCount;
+  private final long seed;
+  private final Board board;
+  private final byte[] cells;
+  private final AtomicInteger hiddenSafeCount;
+  private final AtomicReference<ResultEvent> result;
+  private final Set<FieldObserver> fieldObservers;
+  private volatile int explodedIndex;
+
+  public ConcurrentField(int width, int height, int mineCount)
+  {
+    this(width, height, mineCount, new SplittableRandom());
+  }
+
+  // Draws its seed as Field does, so the same generator gives both the same mines.
+  public ConcurrentField(int width, int height, int mineCount, RandomGenerator random)
+  {
+    Board.checkDimensions(width, height, mineCount);
+    this.width = width;
+    this.height = height;
+    this.mineCount = mineCount;
+    this.seed = random.nextLong();
+    this.board = new Board(width, height);
+    MinePlacer.place(board, mineCount, seed);
+    this.cells = board.cells();
+    this.hiddenSafeCount = new AtomicInteger(width * height - mineCount);
+    this.result = new AtomicReference<>();
+    this.fieldObservers = new CopyOnWriteArraySet<>();
+    this.explodedIndex = -1;
+  }
+
+  public MoveOutcome play(Move... moves)
+  {
+    return play(Arrays.asList(moves));
+  }
+
+  public MoveOutcome play(List<Move> moves)
+  {
+    Action action = new Action();
+    int applied = 0;
+    int revealed = 0;
+    for (Move move : moves)
+    {
+      if (result.get() != null)
+      {
+        break;
+      }
+      if (!board.contains(move.x(), move.y()))
+      {
+        continue;
+      }
+      int index = board.index(move.x(), move.y());
+      int cells = switch (move.type())
+      {
+        case UNCOVER -> reveal(index, action);
+        case FLAG -> flipFlag(index, action) ? 1 : 0;
+        case CHORD -> chord(index, action);
+      };
+      if (cells > 0)
+      {
+        applied++;
+        if (move.type() != Move.Type.FLAG)
+        {
+          revealed += cells;
+        }
+      }
+    }
+    action.finish();
+    return new MoveOutcome(applied, moves.size() - applied, revealed, result.get());
+  }
+
+  private boolean flipFlag(int index, Action action)
+  {
+    byte state;
+    do
+    {
+      state = state(index);
+      if ((state & Board.EXPOSED) != 0)
+      {
+        return false;
+      }
+    }
+    while (!CELLS.compareAndSet(cells, index, state, (byte) (state ^ Board.FLAGGED)));
+    boolean flagged = (state & Board.FLAGGED) == 0;
+    action.changes.add(index, flagged ? SquareEvent.FLAGGED : SquareEvent.UNFLAGGED);
+    return true;
+  }
+
+  private int chord(int index, Action action)
+  {
+    byte state = state(index);
+    if ((state & Board.EXPOSED) == 0 || (state & Board.MINED) != 0)
+    {
+      return 0;
+    }
+    int count = board.neighbours(index, action.neighbours);
+    int[] neighbours = Arrays.copyOf(action.neighbours, count);
+    int flags = 0;
+    for (int neighbour : neighbours)
+    {
+      flags += (state(neighbour) & Board.FLAGGED) != 0 ? 1 : 0;
+    }
+    if (flags != (state & Board.ADJACENT_MINES))
+    {
+      return 0;
+    }
+    int revealed = 0;
+    for (int n = 0; n < count && result.get() == null; n++)
+    {
+      revealed += reveal(neighbours[n], action);
+    }
+    return revealed;
+  }
+
+  private int reveal(int index, Action action)
+  {
+    if (!expose(index))
+    {
+      return 0;
+    }
+    if ((state(index) & Board.MINED) != 0)
+    {
+      lose(index, action);
+      return 1;
+    }
+    action.changes.add(index, SquareEvent.EXPOSED);
+
+    // Only the thread that exposes a cell pushes it, so each cell enters one stack once.
+    int revealed = 1;
+    int[] neighbours = action.neighbours;
+    IntStack pending = action.pending;
+    pending.push(index);
+    while (!pending.isEmpty())
+    {
+      int cell = pending.pop();
+      if ((state(cell) & Board.ADJACENT_MINES) > 0)
+      {
+        continue;
+      }
+      int count = board.neighbours(cell, neighbours);
+      for (int n = 0; n < count; n++)
+      {
+        int neighbour = neighbours[n];
+        if (expose(neighbour))
+        {
+          action.changes.add(neighbour, SquareEvent.EXPOSED);
+          pending.push(neighbour);
+          revealed++;
+        }
+      }
+    }
+    exposedSafe(revealed, action);
+    return revealed;
+  }
+
+  // True if this call turned the cell from hidden to exposed; flagged cells stay hidden.
+  private boolean expose(int index)
+  {
+    return expose(index, (byte) (Board.EXPOSED | Board.FLAGGED));
+  }
+
+  private boolean expose(int index, byte unless)
+  {
+    byte state;
+    do
+    {
+      state = state(index);
+      if ((state & unless) != 0)
+      {
+        return false;
+      }
+    }
+    while (!CELLS.compareAndSet(cells, index, state, (byte) (state | Board.EXPOSED)));
+    return true;
+  }
+
+  private void exposedSafe(int count, Action action)
+  {
+    if (hiddenSafeCount.addAndGet(-count) == 0)
+    {
+      action.published |= result.compareAndSet(null, new ResultEvent(true));
+    }
+  }
+
+  private void lose(int index, Action action)
+  {
+    // With no safe cell left hidden the game is won, even if the result is not set yet.
+    if (result.get() != null || !isSafeCellHidden()
+        || !result.compareAndSet(null, new ResultEvent(false)))
+    {
+      // The game was decided first; this mine is only exposed.
+      action.changes.add(index, SquareEvent.EXPOSED);
+      return;
+    }
+    explodedIndex = index;
+    action.changes.add(index, SquareEvent.EXPLODED);
+    action.published = true;
+    // Mines are revealed whether flagged or not, as Field does.
+    for (int cell = 0; cell < cells.length; cell++)
+    {
+      if ((state(cell) & Board.MINED) != 0 && expose(cell, Board.EXPOSED))
+      {
+        action.changes.add(cell, SquareEvent.EXPOSED);
+      }
+    }
+  }
+
+  // Whether the game can still be lost. The count stays above zero until the cascades that exposed
+  // the last safe cells have finished, so while it does the cells are asked instead. Safe cells are
+  // never hidden again, so once this is false it stays false. The scan only runs until a result is
+  // set, and lose goes over every cell after it anyway.
+  private boolean isSafeCellHidden()
+  {
+    if (hiddenSafeCount.get() == 0)
+    {
+      return false;
+    }
+    for (int cell = 0; cell < cells.length; cell++)
+    {
+      if ((state(cell) & (Board.MINED | Board.EXPOSED)) == 0)
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private byte state(int index)
+  {
+    return (byte) CELLS.getVolatile(cells, index);
+  }
+
+  private int checked(int x, int y)
+  {
+    if (!board.contains(x, y))
+    {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the field");
+    }
+    return board.index(x, y);
+  }
+
+  public boolean isMined(int x, int y)
+  {
+    return (state(checked(x, y)) & Board.MINED) != 0;
+  }
+
+  public boolean isFlagged(int x, int y)
+  {
+    return (state(checked(x, y)) & Board.FLAGGED) != 0;
+  }
+
+  public boolean isExposed(int x, int y)
+  {
+    return (state(checked(x, y)) & Board.EXPOSED) != 0;
+  }
+
+  public boolean isExploded(int x, int y)
+  {
+    return checked(x, y) == explodedIndex;
+  }
+
+  public int surroundingMineCount(int x, int y)
+  {
+    return state(checked(x, y)) & Board.ADJACENT_MINES;
+  }
+
+  public void registerFieldObserver(FieldObserver observer)
+  {
+    fieldObservers.add(observer);
+  }
+
+  public int getWidth()
+  {
+    return width;
+  }
+
+  public int getHeight()
+  {
+    return height;
+  }
+
+  public int getMineCount()
+  {
+    return mineCount;
+  }
+
+  public long getSeed()
+  {
+    return seed;
+  }
+
+  public Optional<ResultEvent> getResult()
+  {
+    return Optional.ofNullable(result.get());
+  }
+
+  // What one play call changed.
+  private class Action
+  {
+    private final FieldDeltaBuilder changes = new FieldDeltaBuilder(board);
+    private final int[] neighbours = new int[Board.MAX_NEIGHBOURS];
+    private final IntStack pending = new IntStack(Board.MAX_NEIGHBOURS);
+    private boolean published;
+
+    void finish()
+    {
+      if (changes.isEmpty() && !published)
+      {
+        return;
+      }
+      FieldDelta delta = changes.build(published ? result.get() : null);
+      fieldObservers.forEach(o -> o.observe(delta));
+    }
+  }
+}
@@ -1,31 +1,79 @@
 package com.rkoyanagui.minesweeper.model;
 
-import java.security.SecureRandom;
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 
-public class Field implements SquareObserver
+public class Field
 {
   private final int width;
   private final int height;
   private final int mineCount;
+  private final Board board;
   private final List<Square> squares;
+  private final Map<Integer, Set<SquareObserver>> squareObservers;
+  private final Set<FieldObserver> fieldObservers;
   private final Set<Consumer<ResultEvent>> observers;
+  private final RandomGenerator random;
+  private ForkJoinPool revealPool;
+  private Executor layoutExecutor;
+  private CompletableFuture<Layout> nextLayout;
+  // The cells of the last layout played, reused for the next one.
+  private byte[] spare;
+  private final FieldTelemetry telemetry;
+  private FieldDeltaBuilder changes;
+  private int actionDepth;
+  private boolean resultChanged;
+  private int explodedIndex;
+  private long seed;
+  private long resets;
+  private ResultEvent result;
 
   public Field(int width, int height, int mineCount)
   {
+    this(width, height, mineCount, new SplittableRandom());
+  }
+
+  public Field(int width, int height, int mineCount, RandomGenerator random)
+  {
+    this(width, height, mineCount, random, true);
+  }
+
+  // A field restored from a snapshot starts without mines, since they are loaded afterwards.
+  Field(int width, int height, int mineCount, RandomGenerator random, boolean placeMines)
+  {
+    Board.checkDimensions(width, height, mineCount);
     this.width = width;
     this.height = height;
     this.mineCount = mineCount;
-    this.squares = new ArrayList<>(width * height);
+    this.board = new Board(width, height);
+    this.squares = new SquareList();
+    this.squareObservers = new HashMap<>();
+    this.fieldObservers = new HashSet<>();
     this.observers = new HashSet<>();
-    fillWithSquares();
-    associateAllSquares();
-    placeMinesAtRandom();
+    this.random = random;
+    this.changes = new FieldDeltaBuilder(board);
+    this.explodedIndex = -1;
+    this.telemetry = new FieldTelemetry(width, height, mineCount);
+    if (placeMines)
+    {
+      placeMinesAtRandom();
+    }
   }
 
   public void forEach(Consumer<Square> f)
@@ -33,83 +81,464 @@ public class Field implements SquareObserver
     squares.forEach(f);
   }
 
-  protected void fillWithSquares()
+  protected List<Square> getNeighbours(int index)
+  {
+    int[] indices = new int[Board.MAX_NEIGHBOURS];
+    int count = board.neighbours(index, indices);
+    List<Square> neighbours = new ArrayList<>(count);
+    for (int n = 0; n < count; n++)
+    {
+      neighbours.add(squares.get(indices[n]));
+    }
+    return neighbours;
+  }
+
+  protected void placeMinesAtRandom()
+  {
+    placeMines(random.nextLong());
+  }
+
+  protected void placeMines(long seed)
+  {
+    MinePlacementEvent event = telemetry.beginPlacement();
+    this.seed = seed;
+    MinePlacer.place(board, mineCount, seed);
+    telemetry.placed(event, seed);
+  }
+
+  public Square getSquare(int x, int y)
+  {
+    return squares.get(checked(x, y));
+  }
+
+  // The state of a square read straight from the board, for callers such as painting that visit
+  // every square too often to make a Square for each.
+  public boolean isMined(int x, int y)
+  {
+    return board.is(checked(x, y), Board.MINED);
+  }
+
+  public boolean isFlagged(int x, int y)
+  {
+    return board.is(checked(x, y), Board.FLAGGED);
+  }
+
+  public boolean isExposed(int x, int y)
+  {
+    return board.is(checked(x, y), Board.EXPOSED);
+  }
+
+  public boolean isExploded(int x, int y)
+  {
+    return checked(x, y) == explodedIndex;
+  }
+
+  public int surroundingMineCount(int x, int y)
+  {
+    return board.adjacentMines(checked(x, y));
+  }
+
+  private int checked(int x, int y)
+  {
+    if (!board.contains(x, y))
+    {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the field");
+    }
+    return board.index(x, y);
+  }
+
+  public MoveOutcome play(Move... moves)
+  {
+    return play(Arrays.asList(moves));
+  }
+
+  public MoveOutcome play(List<Move> moves)
   {
-    for (int y = 0; y < height; y++)
+    if (telemetry.isTraced() && !moves.isEmpty())
+    {
+      Move first = moves.get(0);
+      String action = moves.size() == 1 ? first.type().name() : "BATCH";
+      return telemetry.traced(action, first.x(), first.y(), () -> play(moves), o -> o.revealed());
+    }
+    int applied = 0;
+    int revealed = 0;
+    beginAction();
+    for (Move move : moves)
     {
-      for (int x = 0; x < width; x++)
+      if (result != null)
+      {
+        break;
+      }
+      int cells = switch (move.type())
+      {
+        case UNCOVER -> uncover(move.x(), move.y());
+        case FLAG -> flipFlag(move.x(), move.y()) ? 1 : 0;
+        case CHORD -> chord(move.x(), move.y());
+      };
+      if (cells > 0)
       {
-        Square square = new Square(x, y);
-        square.registerObserver(this);
-        squares.add(square);
+        applied++;
+        if (move.type() != Move.Type.FLAG)
+        {
+          revealed += cells;
+        }
       }
     }
+    endAction();
+    return new MoveOutcome(applied, moves.size() - applied, revealed, result);
+  }
+
+  protected boolean flipFlag(int x, int y)
+  {
+    return board.contains(x, y) && flipFlag(board.index(x, y));
+  }
+
+  protected boolean flipFlag(int index)
+  {
+    if (board.is(index, Board.EXPOSED))
+    {
+      return false;
+    }
+    if (telemetry.isTraced())
+    {
+      return telemetry.traced("FLAG", board.x(index), board.y(index), () -> flipFlag(index),
+          f -> 0);
+    }
+    if (!telemetry.isTimed())
+    {
+      toggleFlag(index);
+      telemetry.flagged(-1);
+      return true;
+    }
+    long start = System.nanoTime();
+    toggleFlag(index);
+    telemetry.flagged(System.nanoTime() - start);
+    return true;
+  }
+
+  private void toggleFlag(int index)
+  {
+    beginAction();
+    if (board.is(index, Board.FLAGGED))
+    {
+      board.unset(index, Board.FLAGGED);
+      changes.add(index, SquareEvent.UNFLAGGED);
+    }
+    else
+    {
+      board.set(index, Board.FLAGGED);
+      changes.add(index, SquareEvent.FLAGGED);
+    }
+    endAction();
+  }
+
+  protected void setExposed(int index, boolean exposed)
+  {
+    beginAction();
+    if (exposed)
+    {
+      board.set(index, Board.EXPOSED);
+      changes.add(index, SquareEvent.EXPOSED);
+    }
+    else
+    {
+      board.unset(index, Board.EXPOSED);
+      changes.add(index, null);
+    }
+    endAction();
+  }
+
+  protected int uncover(int x, int y)
+  {
+    return board.contains(x, y) ? uncover(board.index(x, y)) : 0;
   }
 
-  protected void associateAllSquares()
+  // A player's uncover, recorded with its cascade unless it changed nothing.
+  protected int uncover(int index)
   {
-    for (Square s1 : squares)
+    if (telemetry.isTraced())
+    {
+      return telemetry.traced("UNCOVER", board.x(index), board.y(index), () -> uncover(index),
+          r -> r);
+    }
+    if (!telemetry.isTimed())
     {
-      for (Square s2 : squares)
+      int revealed = reveal(index);
+      if (revealed > 0)
       {
-        s1.addNeighbour(s2);
+        telemetry.uncovered(revealed, -1);
       }
+      return revealed;
     }
+    long start = System.nanoTime();
+    int revealed = reveal(index);
+    if (revealed > 0)
+    {
+      telemetry.uncovered(revealed, System.nanoTime() - start);
+    }
+    return revealed;
   }
 
-  protected void placeMinesAtRandom()
+  protected int chord(int x, int y)
   {
-    SecureRandom random = new SecureRandom();
-    for (int m = 0; m < mineCount; m++)
+    if (!board.contains(x, y))
+    {
+      return 0;
+    }
+    int index = board.index(x, y);
+    if (!board.is(index, Board.EXPOSED) || board.is(index, Board.MINED))
+    {
+      return 0;
+    }
+    if (board.countNeighbours(index, Board.FLAGGED) != board.adjacentMines(index))
+    {
+      return 0;
+    }
+    if (telemetry.isTraced())
+    {
+      return telemetry.traced("CHORD", x, y, () -> chord(x, y), r -> r);
+    }
+    // Recorded as one uncover of everything it opened, as the player made one move.
+    if (!telemetry.isTimed())
     {
-      Optional<Square> square;
-      do
+      int revealed = revealNeighbours(index);
+      if (revealed > 0)
       {
-        int x = random.nextInt(width);
-        int y = random.nextInt(height);
-        square = squares.stream()
-            .filter(s -> s.getX() == x && s.getY() == y)
-            .filter(s -> s.isNotMined())
-            .findFirst();
+        telemetry.uncovered(revealed, -1);
       }
-      while (square.isEmpty());
-
-      square.ifPresent(s -> s.mine());
+      return revealed;
     }
+    long start = System.nanoTime();
+    int revealed = revealNeighbours(index);
+    if (revealed > 0)
+    {
+      telemetry.uncovered(revealed, System.nanoTime() - start);
+    }
+    return revealed;
   }
 
-  protected void flipFlag(int x, int y)
+  private int revealNeighbours(int index)
   {
-    squares.stream()
-        .filter(s -> s.getX() == x && s.getY() == y)
-        .findFirst()
-        .ifPresent(s -> s.flipFlag());
+    int[] neighbours = new int[Board.MAX_NEIGHBOURS];
+    int count = board.neighbours(index, neighbours);
+    int revealed = 0;
+    beginAction();
+    for (int n = 0; n < count && result == null; n++)
+    {
+      revealed += reveal(neighbours[n]);
+    }
+    endAction();
+    return revealed;
   }
 
-  protected void uncover(int x, int y)
+  protected int reveal(int index)
   {
-    squares.stream()
-        .filter(s -> s.getX() == x && s.getY() == y)
-        .findFirst()
-        .ifPresent(s -> s.uncover());
+    if (board.is(index, Board.EXPOSED) || board.is(index, Board.FLAGGED))
+    {
+      return 0;
+    }
+    beginAction();
+    board.set(index, Board.EXPOSED);
+    if (board.is(index, Board.MINED))
+    {
+      explodedIndex = index;
+      changes.add(index, SquareEvent.EXPLODED);
+      endAction();
+      return 1;
+    }
+    changes.add(index, SquareEvent.EXPOSED);
+
+    // Cells are exposed as they are discovered, so each one enters the stack at most once.
+    int revealed = 1;
+    int[] neighbours = new int[Board.MAX_NEIGHBOURS];
+    IntStack pending = new IntStack(Board.MAX_NEIGHBOURS);
+    pending.push(index);
+    int depth = 1;
+    while (!pending.isEmpty())
+    {
+      if (revealPool != null && revealed >= TiledReveal.MIN_CELLS)
+      {
+        revealed += TiledReveal.fill(board, width, height, pending, revealPool, changes);
+        break;
+      }
+      int cell = pending.pop();
+      if (board.adjacentMines(cell) > 0)
+      {
+        continue;
+      }
+      int count = board.neighbours(cell, neighbours);
+      for (int n = 0; n < count; n++)
+      {
+        int neighbour = neighbours[n];
+        if (!board.is(neighbour, Board.EXPOSED) && !board.is(neighbour, Board.FLAGGED))
+        {
+          board.set(neighbour, Board.EXPOSED);
+          changes.add(neighbour, SquareEvent.EXPOSED);
+          pending.push(neighbour);
+          revealed++;
+        }
+      }
+      depth = Math.max(depth, pending.size());
+    }
+    telemetry.traceDepth(depth);
+    endAction();
+    return revealed;
   }
 
   protected void revealMines()
   {
-    squares.stream()
-        .filter(s -> s.isMined() && s.isNotExposed())
-        .forEach(s -> s.setExposed(true));
+    for (int index = 0; index < board.size(); index++)
+    {
+      if (board.is(index, Board.MINED) && !board.is(index, Board.EXPOSED))
+      {
+        setExposed(index, true);
+      }
+    }
   }
 
   protected boolean isMinefieldCleared()
   {
-    return squares.stream().allMatch(s -> s.isCleared());
+    return board.isCleared();
   }
 
   public void reset()
   {
-    squares.forEach(s -> s.reset());
-    placeMinesAtRandom();
+    FieldResetEvent event = telemetry.beginReset();
+    long start = System.nanoTime();
+    boolean prepared = nextLayout != null;
+    int cells;
+    if (prepared)
+    {
+      Layout layout = nextLayout.join();
+      nextLayout = null;
+      cells = load(layout);
+    }
+    else
+    {
+      cells = load(buildLayout(random.nextLong(), takeSpare()));
+    }
+    telemetry.reset(event, System.nanoTime() - start, seed, prepared, cells);
+  }
+
+  public void reset(long seed)
+  {
+    FieldResetEvent event = telemetry.beginReset();
+    long start = System.nanoTime();
+    int cells = load(buildLayout(seed, takeSpare()));
+    telemetry.reset(event, System.nanoTime() - start, this.seed, false, cells);
+  }
+
+  private byte[] takeSpare()
+  {
+    byte[] cells = spare;
+    spare = null;
+    return cells;
+  }
+
+  // Swaps the new layout in whole, so only the cells played on the old one and those with a
+  // SquareObserver are reported as reset, and the rest of the field is never touched. Returns how
+  // many played cells there were.
+  private int load(Layout layout)
+  {
+    beginAction();
+    int before = changes.size();
+    board.forEachPlayed(index -> changes.add(index, SquareEvent.RESET));
+    int cells = changes.size() - before;
+    // SquareObservers predate deltas and may rely on a RESET for their square even when it was
+    // never played, since what lies under it changes; only observed squares get one, so a field
+    // without them still touches just the played cells.
+    for (int index : squareObservers.keySet())
+    {
+      if (!board.is(index, Board.EXPOSED) && !board.is(index, Board.FLAGGED))
+      {
+        changes.add(index, SquareEvent.RESET);
+      }
+    }
+    byte[] old = board.load(layout.cells(), mineCount);
+    seed = layout.seed();
+    resets++;
+    result = null;
+    resultChanged = false;
+    explodedIndex = -1;
+    endAction();
+    if (layoutExecutor != null && nextLayout == null)
+    {
+      prepareLayout(old);
+    }
+    else
+    {
+      spare = old;
+    }
+    return cells;
+  }
+
+  // The seed is drawn here rather than on the executor, so a field hands out the same layouts
+  // in the same order whether or not they are prepared ahead.
+  private void prepareLayout(byte[] cells)
+  {
+    long next = random.nextLong();
+    nextLayout = CompletableFuture.supplyAsync(() -> buildLayout(next, cells), layoutExecutor);
+  }
+
+  private Layout buildLayout(long seed, byte[] cells)
+  {
+    if (cells == null)
+    {
+      cells = new byte[board.size()];
+    }
+    else
+    {
+      Arrays.fill(cells, (byte) 0);
+    }
+    MinePlacementEvent event = telemetry.beginPlacement();
+    MinePlacer.place(new Board(width, height, cells), mineCount, seed);
+    telemetry.placed(event, seed);
+    return new Layout(seed, cells);
+  }
+
+  // A layout for the next reset() is built on the executor while this one is played; null builds
+  // each one when it is needed.
+  public void setLayoutExecutor(Executor executor)
+  {
+    this.layoutExecutor = executor;
+    if (executor == null)
+    {
+      nextLayout = null;
+    }
+    else if (nextLayout == null)
+    {
+      prepareLayout(takeSpare());
+    }
+  }
+
+  protected boolean isNextLayoutReady()
+  {
+    return nextLayout != null && nextLayout.isDone();
+  }
+
+  protected void resetSquare(int index)
+  {
+    beginAction();
+    board.clear(index);
+    if (index == explodedIndex)
+    {
+      explodedIndex = -1;
+    }
+    changes.add(index, SquareEvent.RESET);
+    endAction();
+  }
+
+  // Where this field records its metrics, FieldMetrics.GLOBAL unless set.
+  public void setMetrics(FieldMetrics metrics)
+  {
+    telemetry.setMetrics(metrics);
+  }
+
+  // Adds the counts this field still buffers to its metrics. Call it before dropping a field
+  // whose game has not ended, or the squares played since its last flush are never counted.
+  public void flushMetrics()
+  {
+    telemetry.flush();
   }
 
   public void registerObserver(Consumer<ResultEvent> observer)
@@ -117,23 +546,136 @@ public class Field implements SquareObserver
     observers.add(observer);
   }
 
+  protected void registerObserver(int index, SquareObserver observer)
+  {
+    squareObservers.computeIfAbsent(index, i -> new HashSet<>()).add(observer);
+  }
+
+  public void registerFieldObserver(FieldObserver observer)
+  {
+    fieldObservers.add(observer);
+  }
+
+  // Cascades that grow past TiledReveal.MIN_CELLS are finished on this pool; null keeps every
+  // reveal on the calling thread. The cells exposed are the same either way.
+  public void setRevealPool(ForkJoinPool pool)
+  {
+    this.revealPool = pool;
+  }
+
   protected void notifyObservers(boolean victorious)
   {
-    observers.forEach(o -> o.accept(new ResultEvent(victorious)));
+    ResultEvent event = new ResultEvent(victorious);
+    observers.forEach(o -> o.accept(event));
   }
 
-  @Override
-  public void observe(Square square, SquareEvent event)
+  // Every change made between the outermost beginAction and its endAction is delivered as one
+  // FieldDelta, so a cascade or a batch of moves reaches each observer once.
+  protected void beginAction()
   {
-    if (SquareEvent.EXPLODED.equals(event))
+    actionDepth++;
+  }
+
+  protected void endAction()
+  {
+    settle();
+    if (--actionDepth == 0 && !changes.isEmpty())
     {
+      publish();
+    }
+  }
+
+  private void settle()
+  {
+    if (result != null)
+    {
+      return;
+    }
+    long start = telemetry.winCheckStart();
+    boolean exploded = changes.hasExploded();
+    boolean cleared = !exploded && board.isCleared();
+    telemetry.winChecked(start);
+    if (exploded)
+    {
+      result = new ResultEvent(false);
+      resultChanged = true;
+      telemetry.finished(false);
       revealMines();
-      notifyObservers(false);
     }
-    else if (isMinefieldCleared())
+    else if (cleared)
+    {
+      result = new ResultEvent(true);
+      resultChanged = true;
+      telemetry.finished(true);
+    }
+  }
+
+  private void publish()
+  {
+    FieldDeltaBuilder done = changes;
+    changes = new FieldDeltaBuilder(board);
+    ResultEvent outcome = resultChanged ? result : null;
+    resultChanged = false;
+
+    FieldDelta delta = done.build(outcome);
+    boolean timed = telemetry.isDispatchTimed();
+    long start = timed ? System.nanoTime() : 0;
+    boolean tracing = telemetry.isTracing();
+    int callbacks = tracing ? dispatchTraced(done, delta, outcome) : fieldObservers.size();
+    if (!tracing)
+    {
+      if (!squareObservers.isEmpty())
+      {
+        for (int i = 0; i < done.size(); i++)
+        {
+          callbacks += notifyObservers(done.cell(i), done.event(i));
+        }
+      }
+      fieldObservers.forEach(o -> o.observe(delta));
+      if (outcome != null)
+      {
+        callbacks += observers.size();
+        notifyObservers(outcome.isVictorious());
+      }
+    }
+    telemetry.dispatched(callbacks, timed ? System.nanoTime() - start : -1);
+  }
+
+  // Returns how many observers were called.
+  private int notifyObservers(int index, SquareEvent event)
+  {
+    Set<SquareObserver> cellObservers = squareObservers.get(index);
+    if (cellObservers == null || event == null)
+    {
+      return 0;
+    }
+    Square square = squares.get(index);
+    cellObservers.forEach(o -> o.observe(square, event));
+    return cellObservers.size();
+  }
+
+  // Calls the observers as publish does, timing each call for the action being traced. Kept
+  // apart so publish stays small enough to inline.
+  private int dispatchTraced(FieldDeltaBuilder done, FieldDelta delta, ResultEvent outcome)
+  {
+    FieldTelemetry.ObserverTimes times = new FieldTelemetry.ObserverTimes();
+    for (int i = 0; i < done.size(); i++)
+    {
+      Set<SquareObserver> cellObservers = squareObservers.get(done.cell(i));
+      SquareEvent event = done.event(i);
+      if (cellObservers != null && event != null)
+      {
+        Square square = squares.get(done.cell(i));
+        cellObservers.forEach(o -> times.call(o, () -> o.observe(square, event)));
+      }
+    }
+    fieldObservers.forEach(o -> times.call(o, () -> o.observe(delta)));
+    if (outcome != null)
     {
-      notifyObservers(true);
+      observers.forEach(o -> times.call(o, () -> o.accept(outcome)));
     }
+    telemetry.observed(times);
+    return times.calls();
   }
 
   public int getWidth()
@@ -151,8 +693,62 @@ public class Field implements SquareObserver
     return mineCount;
   }
 
+  public long getSeed()
+  {
+    return seed;
+  }
+
+  // How many times reset has been called, so a holder can tell a new game from the one it saw
+  // even when the seed is the same.
+  public long getResetCount()
+  {
+    return resets;
+  }
+
+  public Optional<ResultEvent> getResult()
+  {
+    return Optional.ofNullable(result);
+  }
+
   public List<Square> getSquares()
   {
     return squares;
   }
+
+  protected int getExplodedIndex()
+  {
+    return explodedIndex;
+  }
+
+  protected Board getBoard()
+  {
+    return board;
+  }
+
+  void restore(long seed, int explodedIndex, ResultEvent result)
+  {
+    this.seed = seed;
+    this.explodedIndex = explodedIndex;
+    this.result = result;
+  }
+
+  private record Layout(long seed, byte[] cells)
+  {
+  }
+
+  private class SquareList extends AbstractList<Square> implements RandomAccess
+  {
+    @Override
+    public Square get(int index)
+    {
+      Objects.checkIndex(index, board.size());
+      return new Square(Field.this, index);
+    }
+
+    @Override
+    public int size()
+    {
+      return board.size();
+    }
+  }
 }
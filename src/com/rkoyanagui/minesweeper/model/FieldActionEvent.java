@@ -0,0 +1,47 @@
+package com.rkoyanagui.minesweeper.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One action by a player, from its first change to its last observer. The observer calls it made
+// are broken down by listener class in the ObserverDispatchEvents committed during it.
+@Name("com.rkoyanagui.minesweeper.FieldAction")
+@Label("Field Action")
+@Category("Minesweeper")
+@Description("An uncover, flag, chord or batch of moves, and where its time went")
+@StackTrace(false)
+final class FieldActionEvent extends Event
+{
+  @Label("Action")
+  String action;
+
+  @Label("X")
+  int x;
+
+  @Label("Y")
+  int y;
+
+  @Label("Cells Revealed")
+  int revealed;
+
+  @Label("Cascade Depth")
+  @Description("The most cells waiting to be expanded at once")
+  int depth;
+
+  @Label("Reveal Time")
+  @Timespan
+  long revealTime;
+
+  @Label("Win Check Time")
+  @Timespan
+  long winCheckTime;
+
+  @Label("Observer Time")
+  @Timespan
+  long observerTime;
+}
@@ -0,0 +1,17 @@
+package com.rkoyanagui.minesweeper.model;
+
+// Everything one action changed: the indices (y * width + x) of the cells it touched, in the
+// order they changed, and the rectangle enclosing them. A batch of moves may touch a cell more
+// than once.
+public record FieldDelta(int[] cells, int minX, int minY, int maxX, int maxY, ResultEvent result)
+{
+  public int size()
+  {
+    return cells.length;
+  }
+
+  public boolean isGameOver()
+  {
+    return result != null;
+  }
+}
@@ -0,0 +1,80 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.Arrays;
+
+final class FieldDeltaBuilder
+{
+  private static final SquareEvent[] EVENTS = SquareEvent.values();
+  private static final byte NO_EVENT = -1;
+
+  private final Board board;
+  private int[] cells;
+  private byte[] events;
+  private int size;
+  private int minX;
+  private int minY;
+  private int maxX;
+  private int maxY;
+  private boolean exploded;
+
+  FieldDeltaBuilder(Board board)
+  {
+    this.board = board;
+    this.cells = new int[16];
+    this.events = new byte[16];
+    this.minX = Integer.MAX_VALUE;
+    this.minY = Integer.MAX_VALUE;
+    this.maxX = Integer.MIN_VALUE;
+    this.maxY = Integer.MIN_VALUE;
+  }
+
+  void add(int index, SquareEvent event)
+  {
+    if (size == cells.length)
+    {
+      cells = Arrays.copyOf(cells, size * 2);
+      events = Arrays.copyOf(events, size * 2);
+    }
+    cells[size] = index;
+    events[size] = event == null ? NO_EVENT : (byte) event.ordinal();
+    size++;
+
+    int x = board.x(index);
+    int y = board.y(index);
+    minX = Math.min(minX, x);
+    minY = Math.min(minY, y);
+    maxX = Math.max(maxX, x);
+    maxY = Math.max(maxY, y);
+    exploded |= event == SquareEvent.EXPLODED;
+  }
+
+  boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  boolean hasExploded()
+  {
+    return exploded;
+  }
+
+  int size()
+  {
+    return size;
+  }
+
+  int cell(int i)
+  {
+    return cells[i];
+  }
+
+  SquareEvent event(int i)
+  {
+    return events[i] == NO_EVENT ? null : EVENTS[events[i]];
+  }
+
+  FieldDelta build(ResultEvent result)
+  {
+    return new FieldDelta(Arrays.copyOf(cells, size), minX, minY, maxX, maxY, result);
+  }
+}
@@ -0,0 +1,7 @@
+package com.rkoyanagui.minesweeper.model;
+
+@FunctionalInterface
+public interface FieldObserver
+{
+  void observe(FieldDelta delta);
+}
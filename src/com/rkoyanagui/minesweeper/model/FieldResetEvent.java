@@ -0,0 +1,25 @@
+package com.rkoyanagui.minesweeper.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.rkoyanagui.minesweeper.FieldReset")
+@Label("Field Reset")
+@Category("Minesweeper")
+@StackTrace(false)
+final class FieldResetEvent extends Event
+{
+  @Label("Seed")
+  long seed;
+
+  @Label("Prepared")
+  @Description("Whether the layout was built ahead, while the last game was played")
+  boolean prepared;
+
+  @Label("Cells Reset")
+  int cells;
+}
@@ -0,0 +1,171 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.SplittableRandom;
+
+// The state of a whole field in a compact binary form, for checkpointing and moving games. All
+// values are big-endian:
+//
+//   int magic, short version, int width, int height, int mineCount, long seed,
+//   int explodedIndex, byte result (0 none, 1 won, 2 lost),
+//   then the mined, flagged and exposed planes, each ceil(width * height / 64) longs holding one
+//   bit per cell in index order.
+//
+// Adjacency counts are rebuilt from the mined plane, so a snapshot is a little over three bits per
+// cell and writing or reading one takes time linear in the board.
+public final class FieldSnapshot
+{
+  static final int MAGIC = 0x4D535746;
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 4 + 8 + 4 + 1;
+  private static final byte[] PLANE_FLAGS = { Board.MINED, Board.FLAGGED, Board.EXPOSED };
+
+  private FieldSnapshot()
+  {
+  }
+
+  public static void write(Field field, WritableByteChannel channel) throws IOException
+  {
+    Board board = field.getBoard();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC)
+        .putShort(VERSION)
+        .putInt(field.getWidth())
+        .putInt(field.getHeight())
+        .putInt(field.getMineCount())
+        .putLong(field.getSeed())
+        .putInt(field.getExplodedIndex())
+        .put(field.getResult().map(r -> r.isVictorious() ? (byte) 1 : (byte) 2).orElse((byte) 0));
+    writeFully(channel, header.flip());
+    for (byte flag : PLANE_FLAGS)
+    {
+      long[] plane = board.plane(flag);
+      ByteBuffer bytes = ByteBuffer.allocate(plane.length * Long.BYTES);
+      bytes.asLongBuffer().put(plane);
+      writeFully(channel, bytes);
+    }
+  }
+
+  // The restored field has no observers; its mines are the snapshot's, and later resets draw
+  // new layouts from a fresh random generator.
+  public static Field read(ReadableByteChannel channel) throws IOException
+  {
+    ByteBuffer header = readFully(channel, HEADER_BYTES);
+    if (header.getInt() != MAGIC)
+    {
+      throw new StreamCorruptedException("Not a field snapshot");
+    }
+    short version = header.getShort();
+    if (version != VERSION)
+    {
+      throw new StreamCorruptedException("Unsupported snapshot version " + version);
+    }
+    int width = header.getInt();
+    int height = header.getInt();
+    int mineCount = header.getInt();
+    long seed = header.getLong();
+    int explodedIndex = header.getInt();
+    byte result = header.get();
+    if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE
+        || explodedIndex < -1 || explodedIndex >= width * height || result < 0 || result > 2)
+    {
+      throw new StreamCorruptedException("Invalid snapshot header");
+    }
+
+    Field field;
+    try
+    {
+      field = new Field(width, height, mineCount, new SplittableRandom(), false);
+    }
+    catch (IllegalArgumentException e)
+    {
+      throw new StreamCorruptedException(e.getMessage());
+    }
+    int cells = width * height;
+    int words = (cells + 63) >>> 6;
+    long[][] planes = new long[PLANE_FLAGS.length][];
+    for (int p = 0; p < PLANE_FLAGS.length; p++)
+    {
+      byte flag = PLANE_FLAGS[p];
+      long[] plane = new long[words];
+      planes[p] = plane;
+      readFully(channel, words * Long.BYTES).asLongBuffer().get(plane);
+      if ((cells & 63) != 0 && plane[words - 1] >>> (cells & 63) != 0)
+      {
+        throw new StreamCorruptedException("Snapshot plane has bits past the last cell");
+      }
+      if (flag == Board.MINED && bitCount(plane) != mineCount)
+      {
+        throw new StreamCorruptedException(
+            "Snapshot header says " + mineCount + " mines but its plane has " + bitCount(plane));
+      }
+      field.getBoard().setPlane(plane, flag);
+    }
+    int flaggedAndExposed = flaggedAndExposed(planes[0], planes[1], planes[2], result == 2);
+    if (flaggedAndExposed >= 0)
+    {
+      throw new StreamCorruptedException(
+          "Snapshot says square " + flaggedAndExposed + " is both flagged and exposed");
+    }
+    if (explodedIndex >= 0 && (!field.getBoard().is(explodedIndex, Board.MINED)
+        || !field.getBoard().is(explodedIndex, Board.EXPOSED)))
+    {
+      throw new StreamCorruptedException(
+          "Snapshot says square " + explodedIndex + " exploded but it is not an exposed mine");
+    }
+    field.restore(seed, explodedIndex, result == 0 ? null : new ResultEvent(result == 1));
+    return field;
+  }
+
+  // The first square that is flagged and exposed at once, or -1. A field only leaves a square
+  // like that when it loses and shows its mines, flagged or not, so a lost game may have mines
+  // like that and nothing else may.
+  private static int flaggedAndExposed(long[] mined, long[] flagged, long[] exposed, boolean lost)
+  {
+    for (int w = 0; w < flagged.length; w++)
+    {
+      long both = flagged[w] & exposed[w] & (lost ? ~mined[w] : -1L);
+      if (both != 0)
+      {
+        return (w << 6) + Long.numberOfTrailingZeros(both);
+      }
+    }
+    return -1;
+  }
+
+  private static long bitCount(long[] plane)
+  {
+    long count = 0;
+    for (long word : plane)
+    {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException
+  {
+    while (buffer.hasRemaining())
+    {
+      channel.write(buffer);
+    }
+  }
+
+  private static ByteBuffer readFully(ReadableByteChannel channel, int bytes) throws IOException
+  {
+    ByteBuffer buffer = ByteBuffer.allocate(bytes);
+    while (buffer.hasRemaining())
+    {
+      if (channel.read(buffer) < 0)
+      {
+        throw new EOFException("Snapshot ended early");
+      }
+    }
+    return buffer.flip();
+  }
+}
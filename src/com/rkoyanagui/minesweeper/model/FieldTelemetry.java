@@ -0,0 +1,253 @@
+package com.rkoyanagui.minesweeper.model;
+
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+// What one Field records about its play: counts and timings through a FieldMetrics.Recorder and,
+// while a JFR recording wants them, its actions, resets and mine placements as events. The field
+// calls in at the points it records; everything about how is kept here. Not thread-safe, like
+// the field itself.
+final class FieldTelemetry
+{
+  private final int width;
+  private final int height;
+  private final int mineCount;
+  private FieldMetrics.Recorder metrics;
+  // The action being recorded for JFR; null unless a recording wants it and an action is open.
+  private FieldActionEvent trace;
+
+  FieldTelemetry(int width, int height, int mineCount)
+  {
+    this.width = width;
+    this.height = height;
+    this.mineCount = mineCount;
+    this.metrics = FieldMetrics.GLOBAL.recorder();
+  }
+
+  void setMetrics(FieldMetrics metrics)
+  {
+    this.metrics.flush();
+    this.metrics = metrics.recorder();
+  }
+
+  void flush()
+  {
+    metrics.flush();
+  }
+
+  // Whether the uncover or flag about to start should be timed; call once for each.
+  boolean isTimed()
+  {
+    return metrics.isTimed();
+  }
+
+  void uncovered(int cells, long nanos)
+  {
+    metrics.uncovered(cells, nanos);
+  }
+
+  void flagged(long nanos)
+  {
+    metrics.flagged(nanos);
+  }
+
+  void finished(boolean victorious)
+  {
+    metrics.finished(victorious);
+  }
+
+  boolean isDispatchTimed()
+  {
+    return metrics.isDispatchTimed();
+  }
+
+  // Every dispatch gives its fan-out; nanos is negative when it was not timed.
+  void dispatched(int callbacks, long nanos)
+  {
+    metrics.dispatched(callbacks, nanos);
+  }
+
+  // Null while the recorder is off, as is the event beginReset returns.
+  MinePlacementEvent beginPlacement()
+  {
+    if (!isRecorderOn())
+    {
+      return null;
+    }
+    MinePlacementEvent event = new MinePlacementEvent();
+    event.begin();
+    return event;
+  }
+
+  void placed(MinePlacementEvent event, long seed)
+  {
+    if (event != null && event.shouldCommit())
+    {
+      event.width = width;
+      event.height = height;
+      event.mines = mineCount;
+      event.seed = seed;
+      event.commit();
+    }
+  }
+
+  FieldResetEvent beginReset()
+  {
+    if (!isRecorderOn())
+    {
+      return null;
+    }
+    FieldResetEvent event = new FieldResetEvent();
+    event.begin();
+    return event;
+  }
+
+  void reset(FieldResetEvent event, long nanos, long seed, boolean prepared, int cells)
+  {
+    metrics.restarted(nanos);
+    if (event != null && event.shouldCommit())
+    {
+      event.seed = seed;
+      event.prepared = prepared;
+      event.cells = cells;
+      event.commit();
+    }
+  }
+
+  // Merely loading a JFR event class sets the recorder up, and with it set up every action
+  // costs more even when nothing is recording, so no event is created until something else has
+  // started it.
+  private static boolean isRecorderOn()
+  {
+    return FlightRecorder.isInitialized();
+  }
+
+  // Whether an action starting now should be recorded as a FieldActionEvent.
+  boolean isTraced()
+  {
+    return trace == null && isRecorderOn() && ActionEvents.TYPE.isEnabled();
+  }
+
+  // Whether an action is being recorded right now.
+  boolean isTracing()
+  {
+    return trace != null;
+  }
+
+  // Kept out of reveal, which has to stay small enough to be inlined where it is hot.
+  void traceDepth(int depth)
+  {
+    if (trace != null)
+    {
+      trace.depth = Math.max(trace.depth, depth);
+    }
+  }
+
+  // Zero unless an action is being recorded, so the clock is only read for one.
+  long winCheckStart()
+  {
+    return trace != null ? System.nanoTime() : 0;
+  }
+
+  void winChecked(long start)
+  {
+    if (trace != null)
+    {
+      trace.winCheckTime += System.nanoTime() - start;
+    }
+  }
+
+  // Adds the observer calls of a traced dispatch to the action and commits them by listener.
+  void observed(ObserverTimes times)
+  {
+    trace.observerTime += times.total;
+    times.commit();
+  }
+
+  // Runs an action from beginning to end as a FieldActionEvent; only reached while a JFR
+  // recording wants the event, so nothing here costs anything otherwise. The reveal time is what
+  // is left once the win checks and the observers are taken out.
+  <T> T traced(String action, int x, int y, Supplier<T> body, ToIntFunction<T> revealed)
+  {
+    FieldActionEvent event = new FieldActionEvent();
+    trace = event;
+    event.begin();
+    long start = System.nanoTime();
+    T outcome;
+    try
+    {
+      outcome = body.get();
+    }
+    finally
+    {
+      trace = null;
+    }
+    event.revealTime = System.nanoTime() - start - event.winCheckTime - event.observerTime;
+    event.end();
+    if (event.shouldCommit())
+    {
+      event.action = action;
+      event.revealed = revealed.applyAsInt(outcome);
+      event.x = x;
+      event.y = y;
+      event.commit();
+    }
+    return outcome;
+  }
+
+  // Looked up on first use, once the recorder is known to be on.
+  private static class ActionEvents
+  {
+    private static final EventType TYPE = EventType.getEventType(FieldActionEvent.class);
+  }
+
+  // The time observers took during one delivery, by listener class, for JFR.
+  static class ObserverTimes
+  {
+    private final Map<Class<?>, long[]> byClass;
+    private int calls;
+    private long total;
+
+    ObserverTimes()
+    {
+      this.byClass = new HashMap<>();
+    }
+
+    void call(Object listener, Runnable call)
+    {
+      long start = System.nanoTime();
+      call.run();
+      long time = System.nanoTime() - start;
+      long[] callsAndTime = byClass.computeIfAbsent(listener.getClass(), c -> new long[2]);
+      callsAndTime[0]++;
+      callsAndTime[1] += time;
+      calls++;
+      total += time;
+    }
+
+    int calls()
+    {
+      return calls;
+    }
+
+    private void commit()
+    {
+      byClass.forEach((listener, callsAndTime) ->
+      {
+        ObserverDispatchEvent event = new ObserverDispatchEvent();
+        if (event.shouldCommit())
+        {
+          event.listener = listener;
+          event.calls = (int) callsAndTime[0];
+          event.time = callsAndTime[1];
+          event.commit();
+        }
+      });
+    }
+  }
+}
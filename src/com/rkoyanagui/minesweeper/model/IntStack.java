@@ -0,0 +1,48 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.Arrays;
+
+final class IntStack
+{
+  private int[] elements;
+  private int size;
+
+  IntStack(int initialCapacity)
+  {
+    this.elements = new int[Math.max(1, initialCapacity)];
+  }
+
+  void push(int element)
+  {
+    if (size == elements.length)
+    {
+      elements = Arrays.copyOf(elements, size * 2);
+    }
+    elements[size++] = element;
+  }
+
+  int pop()
+  {
+    return elements[--size];
+  }
+
+  boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  void clear()
+  {
+    size = 0;
+  }
+
+  int size()
+  {
+    return size;
+  }
+
+  int get(int i)
+  {
+    return elements[i];
+  }
+}
@@ -0,0 +1,26 @@
+package com.rkoyanagui.minesweeper.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.rkoyanagui.minesweeper.MinePlacement")
+@Label("Mine Placement")
+@Category("Minesweeper")
+@StackTrace(false)
+final class MinePlacementEvent extends Event
+{
+  @Label("Width")
+  int width;
+
+  @Label("Height")
+  int height;
+
+  @Label("Mines")
+  int mines;
+
+  @Label("Seed")
+  long seed;
+}
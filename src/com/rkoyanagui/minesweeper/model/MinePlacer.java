@@ -0,0 +1,30 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+final class MinePlacer
+{
+  private MinePlacer()
+  {
+  }
+
+  // A layout depends only on the board size, the mine count and the seed, so recording the seed
+  // is enough to rebuild a game.
+  static void place(Board board, int mineCount, long seed)
+  {
+    place(board, mineCount, new SplittableRandom(seed));
+  }
+
+  // Floyd's sampling: one draw per mine, no retries, whatever the density. The board must be
+  // free of mines beforehand.
+  static void place(Board board, int mineCount, RandomGenerator random)
+  {
+    int cells = board.size();
+    for (int j = cells - mineCount; j < cells; j++)
+    {
+      int candidate = random.nextInt(j + 1);
+      board.set(board.is(candidate, Board.MINED) ? j : candidate, Board.MINED);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.rkoyanagui.minesweeper.model;
+
+public record Move(Move.Type type, int x, int y)
+{
+  public enum Type
+  {
+    UNCOVER, FLAG, CHORD
+  }
+
+  public static Move uncover(int x, int y)
+  {
+    return new Move(Type.UNCOVER, x, y);
+  }
+
+  public static Move flag(int x, int y)
+  {
+    return new Move(Type.FLAG, x, y);
+  }
+
+  public static Move chord(int x, int y)
+  {
+    return new Move(Type.CHORD, x, y);
+  }
+}
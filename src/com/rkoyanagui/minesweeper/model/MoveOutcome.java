@@ -0,0 +1,19 @@
+package com.rkoyanagui.minesweeper.model;
+
+public record MoveOutcome(int applied, int skipped, int revealed, ResultEvent result)
+{
+  public boolean isGameOver()
+  {
+    return result != null;
+  }
+
+  public boolean isVictorious()
+  {
+    return isGameOver() && result.isVictorious();
+  }
+
+  public boolean isDefeated()
+  {
+    return isGameOver() && result.isDefeated();
+  }
+}
@@ -0,0 +1,61 @@
+package com.rkoyanagui.minesweeper.model;
+
+// The cells around a square, for any code that walks a board by coordinates: Board itself, the
+// board versions, the chunked field and the solvers. Neighbours come in row-major order, the
+// order squares are laid out in, so for an int-indexed board they are in ascending order.
+public final class Neighbourhood
+{
+  public static final int MAX_SIZE = 8;
+
+  static final int[] DX = { -1, 0, 1, -1, 1, -1, 0, 1 };
+  static final int[] DY = { -1, -1, -1, 0, 0, 1, 1, 1 };
+
+  private Neighbourhood()
+  {
+  }
+
+  // Writes the index, y * width + x, of each cell around (x, y) on a width by height board into
+  // into and returns how many there are.
+  public static int indices(int x, int y, int width, int height, int[] into)
+  {
+    boolean interior = isInterior(x, y, width, height);
+    int index = y * width + x;
+    int count = 0;
+    for (int n = 0; n < MAX_SIZE; n++)
+    {
+      if (interior || contains(x + DX[n], y + DY[n], width, height))
+      {
+        into[count++] = index + DY[n] * width + DX[n];
+      }
+    }
+    return count;
+  }
+
+  // As indices, but with each cell packed as PlaneDelta packs it, for boards whose cells don't fit
+  // an int index.
+  public static int cells(int x, int y, int width, int height, long[] into)
+  {
+    boolean interior = isInterior(x, y, width, height);
+    int count = 0;
+    for (int n = 0; n < MAX_SIZE; n++)
+    {
+      int nx = x + DX[n];
+      int ny = y + DY[n];
+      if (interior || contains(nx, ny, width, height))
+      {
+        into[count++] = (long) ny << 32 | nx;
+      }
+    }
+    return count;
+  }
+
+  static boolean isInterior(int x, int y, int width, int height)
+  {
+    return x > 0 && x < width - 1 && y > 0 && y < height - 1;
+  }
+
+  private static boolean contains(int x, int y, int width, int height)
+  {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+}
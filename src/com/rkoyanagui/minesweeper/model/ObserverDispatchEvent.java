@@ -0,0 +1,28 @@
+package com.rkoyanagui.minesweeper.model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// The time one listener class took over all its calls for one delta.
+@Name("com.rkoyanagui.minesweeper.ObserverDispatch")
+@Label("Observer Dispatch")
+@Category("Minesweeper")
+@Description("Calls to the observers of one class for one field action")
+@StackTrace(false)
+final class ObserverDispatchEvent extends Event
+{
+  @Label("Listener Class")
+  Class<?> listener;
+
+  @Label("Calls")
+  int calls;
+
+  @Label("Time")
+  @Timespan
+  long time;
+}
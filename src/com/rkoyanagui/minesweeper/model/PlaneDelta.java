@@ -0,0 +1,26 @@
+package com.rkoyanagui.minesweeper.model;
+
+// A FieldDelta for a ChunkedField, whose cells don't fit an int index. Each cell is packed as
+// (long) y << 32 | x; see x(long) and y(long).
+public record PlaneDelta(long[] cells, int minX, int minY, int maxX, int maxY, ResultEvent result)
+{
+  public static int x(long cell)
+  {
+    return (int) cell;
+  }
+
+  public static int y(long cell)
+  {
+    return (int) (cell >>> 32);
+  }
+
+  public int size()
+  {
+    return cells.length;
+  }
+
+  public boolean isGameOver()
+  {
+    return result != null;
+  }
+}
@@ -0,0 +1,7 @@
+package com.rkoyanagui.minesweeper.model;
+
+@FunctionalInterface
+public interface PlaneObserver
+{
+  void observe(PlaneDelta delta);
+}
@@ -1,181 +1,137 @@
 package com.rkoyanagui.minesweeper.model;
 
-import java.io.Serial;
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-public class Square implements Serializable
+public class Square
 {
-  private final int x;
-  private final int y;
-  private boolean mined;
-  private boolean flagged;
-  private boolean exposed;
-  private final List<Square> neighbours;
-  private final transient Set<SquareObserver> observers;
+  private final Field field;
+  private final Board board;
+  private final int index;
 
-  public Square(int x, int y)
+  protected Square(Field field, int index)
   {
-    this.x = x;
-    this.y = y;
-    this.mined = false;
-    this.flagged = false;
-    this.exposed = false;
-    this.neighbours = new ArrayList<>(8);
-    this.observers = new HashSet<>();
+    this.field = field;
+    this.board = field.getBoard();
+    this.index = index;
   }
 
   public void registerObserver(SquareObserver observer)
   {
-    observers.add(observer);
-  }
-
-  protected void notifyObservers(SquareEvent event)
-  {
-    observers.forEach(o -> o.observe(this, event));
-  }
-
-  protected boolean addNeighbour(Square other)
-  {
-    boolean onTheSameRow = this.y == other.y;
-    boolean onTheSameColumn = this.x == other.x;
-    boolean crosswise = onTheSameRow || onTheSameColumn;
-    boolean diagonal = !crosswise;
-    int deltaX = Math.abs(this.x - other.x);
-    int deltaY = Math.abs(this.y - other.y);
-    int delta = deltaX + deltaY;
-
-    if (crosswise && delta == 1 || diagonal && delta == 2)
-    {
-      neighbours.add(other);
-      return true;
-    }
-    return false;
+    field.registerObserver(index, observer);
   }
 
   public boolean isSafeNeighbourhood()
   {
-    return neighbours.stream().noneMatch(n -> n.isMined());
+    return board.adjacentMines(index) == 0;
   }
 
   public List<Square> getNeighbours()
   {
-    return neighbours;
+    return field.getNeighbours(index);
   }
 
   public int surroundingMineCount()
   {
-    return (int) neighbours.stream().filter(n -> n.isMined()).count();
+    return board.adjacentMines(index);
   }
 
   public int getX()
   {
-    return x;
+    return board.x(index);
   }
 
   public int getY()
   {
-    return y;
+    return board.y(index);
+  }
+
+  protected int getIndex()
+  {
+    return index;
   }
 
   public boolean isMined()
   {
-    return mined;
+    return board.is(index, Board.MINED);
   }
 
   public boolean isNotMined()
   {
-    return !mined;
+    return !isMined();
   }
 
   protected void mine()
   {
-    mined = true;
+    board.set(index, Board.MINED);
   }
 
   public boolean isFlagged()
   {
-    return flagged;
+    return board.is(index, Board.FLAGGED);
   }
 
   public boolean isNotFlagged()
   {
-    return !flagged;
+    return !isFlagged();
   }
 
   public void flipFlag()
   {
-    if (!exposed)
-    {
-      flagged = !flagged;
-      if (flagged)
-      {
-        notifyObservers(SquareEvent.FLAGGED);
-      }
-      else
-      {
-        notifyObservers(SquareEvent.UNFLAGGED);
-      }
-    }
+    field.flipFlag(index);
   }
 
   public boolean isExposed()
   {
-    return exposed;
+    return board.is(index, Board.EXPOSED);
   }
 
   public boolean isNotExposed()
   {
-    return !exposed;
+    return !isExposed();
   }
 
   public void setExposed(boolean exposed)
   {
-    this.exposed = exposed;
-    if (exposed)
-    {
-      notifyObservers(SquareEvent.EXPOSED);
-    }
+    field.setExposed(index, exposed);
   }
 
   public boolean uncover()
   {
-    if (!exposed && !flagged)
-    {
-      exposed = true;
-      if (mined)
-      {
-        notifyObservers(SquareEvent.EXPLODED);
-      }
-      else
-      {
-        setExposed(true);
-        if (isSafeNeighbourhood())
-        {
-          neighbours.forEach(n -> n.uncover());
-        }
-      }
-      return true;
-    }
-    return false;
+    return field.uncover(index) > 0;
+  }
+
+  public boolean isExploded()
+  {
+    return field.getExplodedIndex() == index;
   }
 
   public boolean isCleared()
   {
-    return mined ^ exposed;
+    return isMined() ^ isExposed();
   }
 
   protected void reset()
   {
-    mined = false;
-    flagged = false;
-    exposed = false;
-    notifyObservers(SquareEvent.RESET);
+    field.resetSquare(index);
+  }
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+    {
+      return true;
+    }
+    if (!(o instanceof Square other))
+    {
+      return false;
+    }
+    return field == other.field && index == other.index;
   }
 
-  @Serial
-  private static final long serialVersionUID = -1812446029736930780L;
+  @Override
+  public int hashCode()
+  {
+    return 31 * System.identityHashCode(field) + index;
+  }
 }
@@ -0,0 +1,219 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Finishes a cascade on a fork/join pool. The board is cut into TILE_SIZE square tiles and each
+// tile is filled by one task that only writes its own cells. A zero on a tile's edge hands its
+// neighbours in other tiles over as seeds, and rounds of fills run until no tile has any. Which
+// cells end up exposed does not depend on the order, so the result is the same as a sequential
+// reveal; only the order the cells are reported in differs.
+final class TiledReveal
+{
+  static final int TILE_SIZE = 256;
+  // Cascades smaller than this are not worth handing over.
+  static final int MIN_CELLS = 1 << 14;
+
+  private final Board board;
+  private final byte[] cells;
+  private final int width;
+  private final int height;
+  private final int tilesX;
+  private final Tile[] tiles;
+  private final int[] offsets;
+
+  private TiledReveal(Board board, int width, int height)
+  {
+    this.board = board;
+    this.cells = board.cells();
+    this.width = width;
+    this.height = height;
+    this.tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+    this.tiles = new Tile[tilesX * ((height + TILE_SIZE - 1) / TILE_SIZE)];
+    this.offsets = new int[] { -width - 1, -width, -width + 1, -1, 1, width - 1, width, width + 1 };
+  }
+
+  // Expands the exposed zeros left on pending, adds every cell it exposes to changes and to the
+  // board's played cells, and returns how many there were.
+  static int fill(Board board, int width, int height, IntStack pending, ForkJoinPool pool,
+      FieldDeltaBuilder changes)
+  {
+    TiledReveal reveal = new TiledReveal(board, width, height);
+    List<Tile> active = new ArrayList<>();
+    while (!pending.isEmpty())
+    {
+      int cell = pending.pop();
+      reveal.tile(cell, active).expand.push(cell);
+    }
+    int revealed = 0;
+    while (!active.isEmpty())
+    {
+      List<Tile> round = active;
+      pool.invoke(new Round(round));
+      for (Tile tile : round)
+      {
+        for (int i = 0; i < tile.exposed.size(); i++)
+        {
+          changes.add(tile.exposed.get(i), SquareEvent.EXPOSED);
+          board.markPlayed(tile.exposed.get(i));
+        }
+        revealed += tile.exposed.size();
+        tile.exposed.clear();
+        tile.active = false;
+      }
+      // Only once every tile of the round is inactive, so each one joins the next round once.
+      active = new ArrayList<>();
+      for (Tile tile : round)
+      {
+        for (int i = 0; i < tile.handOver.size(); i++)
+        {
+          int cell = tile.handOver.get(i);
+          reveal.tile(cell, active).seeds.push(cell);
+        }
+        tile.handOver.clear();
+      }
+    }
+    board.exposedSafe(revealed);
+    return revealed;
+  }
+
+  // The tile holding the cell, which is added to active when it first gets work this round.
+  private Tile tile(int cell, List<Tile> active)
+  {
+    int x = cell % width;
+    int y = cell / width;
+    int id = (y / TILE_SIZE) * tilesX + x / TILE_SIZE;
+    Tile tile = tiles[id];
+    if (tile == null)
+    {
+      tile = new Tile(x / TILE_SIZE * TILE_SIZE, y / TILE_SIZE * TILE_SIZE);
+      tiles[id] = tile;
+    }
+    if (!tile.active)
+    {
+      tile.active = true;
+      active.add(tile);
+    }
+    return tile;
+  }
+
+  private static class Round extends RecursiveAction
+  {
+    @Serial
+    private static final long serialVersionUID = -5147314774984181203L;
+
+    private final List<Tile> tiles;
+
+    Round(List<Tile> tiles)
+    {
+      this.tiles = tiles;
+    }
+
+    @Override
+    protected void compute()
+    {
+      ForkJoinTask.invokeAll(tiles.stream().map(t -> t.task()).toList());
+    }
+  }
+
+  private class Tile
+  {
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    // Exposed zeros to expand, from the sequential part of the cascade.
+    private final IntStack expand;
+    // Cells handed over by other tiles, still to be checked.
+    private final IntStack seeds;
+    private final IntStack exposed;
+    private final IntStack handOver;
+    private boolean active;
+
+    Tile(int minX, int minY)
+    {
+      this.minX = minX;
+      this.minY = minY;
+      this.maxX = Math.min(width, minX + TILE_SIZE) - 1;
+      this.maxY = Math.min(height, minY + TILE_SIZE) - 1;
+      this.expand = new IntStack(16);
+      this.seeds = new IntStack(16);
+      this.exposed = new IntStack(16);
+      this.handOver = new IntStack(16);
+    }
+
+    ForkJoinTask<?> task()
+    {
+      return ForkJoinTask.adapt(() -> fill());
+    }
+
+    // The exposed list doubles as the queue of cells to expand, so each cell is stored once.
+    private void fill()
+    {
+      int next = exposed.size();
+      while (!seeds.isEmpty())
+      {
+        expose(seeds.pop());
+      }
+      while (!expand.isEmpty())
+      {
+        expand(expand.pop());
+      }
+      while (next < exposed.size())
+      {
+        expand(exposed.get(next++));
+      }
+    }
+
+    private void expand(int cell)
+    {
+      if ((cells[cell] & Board.ADJACENT_MINES) > 0)
+      {
+        return;
+      }
+      int x = cell % width;
+      int y = cell / width;
+      if (x > minX && x < maxX && y > minY && y < maxY)
+      {
+        for (int offset : offsets)
+        {
+          expose(cell + offset);
+        }
+        return;
+      }
+      for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+      {
+        for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+        {
+          int neighbour = ny * width + nx;
+          if (nx < minX || nx > maxX || ny < minY || ny > maxY)
+          {
+            // Another tile may be exposing this cell right now. Either value read is safe:
+            // exposed means that tile has it, hidden at worst hands over a seed for nothing.
+            if ((cells[neighbour] & (Board.EXPOSED | Board.FLAGGED)) == 0)
+            {
+              handOver.push(neighbour);
+            }
+          }
+          else
+          {
+            expose(neighbour);
+          }
+        }
+      }
+    }
+
+    private void expose(int cell)
+    {
+      if ((cells[cell] & (Board.EXPOSED | Board.FLAGGED)) == 0)
+      {
+        cells[cell] |= Board.EXPOSED;
+        exposed.push(cell);
+      }
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.rkoyanagui.minesweeper.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Undo and redo over board versions. Each version shares most of its tiles with the one before,
+// so keeping all of them costs memory in proportion to the cells the moves changed.
+public class VersionHistory
+{
+  private final List<BoardVersion> versions;
+  private int current;
+
+  public VersionHistory(BoardVersion initial)
+  {
+    this.versions = new ArrayList<>();
+    this.versions.add(initial);
+  }
+
+  public BoardVersion getCurrent()
+  {
+    return versions.get(current);
+  }
+
+  // Playing after an undo discards the versions that could have been redone. Moves that change
+  // nothing add no version.
+  public BoardVersion play(Move... moves)
+  {
+    return play(Arrays.asList(moves));
+  }
+
+  public BoardVersion play(List<Move> moves)
+  {
+    BoardVersion next = getCurrent().play(moves);
+    if (next != getCurrent())
+    {
+      versions.subList(current + 1, versions.size()).clear();
+      versions.add(next);
+      current++;
+    }
+    return next;
+  }
+
+  public boolean canUndo()
+  {
+    return current > 0;
+  }
+
+  public boolean canRedo()
+  {
+    return current < versions.size() - 1;
+  }
+
+  public BoardVersion undo()
+  {
+    if (canUndo())
+    {
+      current--;
+    }
+    return getCurrent();
+  }
+
+  public BoardVersion redo()
+  {
+    if (canRedo())
+    {
+      current++;
+    }
+    return getCurrent();
+  }
+}
@@ -0,0 +1,38 @@
+package com.rkoyanagui.minesweeper.simulation;
+
+public record SimulationResult(long games, long wins, long moves, long guesses, long nanos)
+{
+  public static final SimulationResult EMPTY = new SimulationResult(0, 0, 0, 0, 0);
+
+  public double winRate()
+  {
+    return games == 0 ? 0 : (double) wins / games;
+  }
+
+  public double averageMoves()
+  {
+    return games == 0 ? 0 : (double) moves / games;
+  }
+
+  public double averageGuesses()
+  {
+    return games == 0 ? 0 : (double) guesses / games;
+  }
+
+  public double gamesPerSecond()
+  {
+    return nanos == 0 ? 0 : games * 1e9 / nanos;
+  }
+
+  // Combines the counts of two disjoint batches; the elapsed time is left to the caller.
+  SimulationResult plus(SimulationResult other)
+  {
+    return new SimulationResult(games + other.games, wins + other.wins,
+        moves + other.moves, guesses + other.guesses, nanos);
+  }
+
+  SimulationResult withNanos(long nanos)
+  {
+    return new SimulationResult(games, wins, moves, guesses, nanos);
+  }
+}
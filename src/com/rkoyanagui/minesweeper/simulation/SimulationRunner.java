@@ -0,0 +1,99 @@
+package com.rkoyanagui.minesweeper.simulation;
+
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.solver.Solver;
+import java.io.Serial;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Plays batches of solver games on a fork/join pool. Every batch of LEAF_GAMES games gets its own
+// field, reset between games, and its own random streams split off the seed. The split tree only
+// depends on the number of games, so a seed gives the same totals on any number of cores.
+public class SimulationRunner
+{
+  private static final int LEAF_GAMES = 64;
+
+  private final int width;
+  private final int height;
+  private final int mineCount;
+  private final ForkJoinPool pool;
+
+  public SimulationRunner(int width, int height, int mineCount)
+  {
+    this(width, height, mineCount, ForkJoinPool.commonPool());
+  }
+
+  public SimulationRunner(int width, int height, int mineCount, ForkJoinPool pool)
+  {
+    this.width = width;
+    this.height = height;
+    this.mineCount = mineCount;
+    this.pool = pool;
+  }
+
+  public SimulationResult run(long games, long seed)
+  {
+    if (games < 0)
+    {
+      throw new IllegalArgumentException("games must not be negative: " + games);
+    }
+    long start = System.nanoTime();
+    SimulationResult result = pool.invoke(new Batch(games, new SplittableRandom(seed)));
+    return result.withNanos(System.nanoTime() - start);
+  }
+
+  SimulationResult play(long games, SplittableRandom random)
+  {
+    Field field = new Field(width, height, mineCount, random.split());
+    // Simulated games are not games anyone played.
+    field.setMetrics(FieldMetrics.NONE);
+    Solver solver = new Solver(field, random.split());
+    long wins = 0;
+    for (long game = 0; game < games; game++)
+    {
+      // The field is created with its mines placed, so only later games reset it.
+      if (game > 0)
+      {
+        field.reset();
+      }
+      if (solver.solve().filter(r -> r.isVictorious()).isPresent())
+      {
+        wins++;
+      }
+    }
+    long guesses = solver.getGuesses();
+    return new SimulationResult(games, wins, solver.getDecidedMoves() + guesses, guesses, 0);
+  }
+
+  private class Batch extends RecursiveTask<SimulationResult>
+  {
+    @Serial
+    private static final long serialVersionUID = -3308604274761912673L;
+
+    private final long games;
+    private final SplittableRandom random;
+
+    Batch(long games, SplittableRandom random)
+    {
+      this.games = games;
+      this.random = random;
+    }
+
+    @Override
+    protected SimulationResult compute()
+    {
+      if (games <= LEAF_GAMES)
+      {
+        return games == 0 ? SimulationResult.EMPTY : play(games, random);
+      }
+      long half = games / 2;
+      Batch left = new Batch(half, random.split());
+      Batch right = new Batch(games - half, random.split());
+      left.fork();
+      SimulationResult result = right.compute();
+      return left.join().plus(result);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import java.util.Arrays;
+
+// Hidden cells tied together by shared exposed numbers, and those numbers. Two groups with the
+// same cells and the same numbers have the same solutions, which is what the engine caches on.
+final class ConstraintGroup
+{
+  static final int MAX_CELLS = 64;
+  private static final long MAX_NODES = 1L << 22;
+
+  private final int[] cells;
+  private final int[] constraints;
+  private final int[] targets;
+  private final int[][] members;
+  private final int hash;
+
+  // cells must be sorted. constraintCells[c] holds the hidden neighbours of constraints[c], which
+  // must hold exactly targets[c] mines between them.
+  ConstraintGroup(int[] cells, int[] constraints, int[] targets, int[][] constraintCells)
+  {
+    this.cells = cells;
+    this.constraints = constraints;
+    this.targets = targets;
+    this.members = new int[constraintCells.length][];
+    for (int c = 0; c < constraintCells.length; c++)
+    {
+      members[c] = new int[constraintCells[c].length];
+      for (int m = 0; m < members[c].length; m++)
+      {
+        members[c][m] = Arrays.binarySearch(cells, constraintCells[c][m]);
+      }
+    }
+    this.hash = 31 * (31 * Arrays.hashCode(cells) + Arrays.hashCode(constraints))
+        + Arrays.hashCode(targets);
+  }
+
+  int[] cells()
+  {
+    return cells;
+  }
+
+  int[] constraints()
+  {
+    return constraints;
+  }
+
+  int size()
+  {
+    return cells.length;
+  }
+
+  // Counts, for every number of mines k, the assignments that satisfy all constraints, and for
+  // every cell how many of those put a mine on it. Returns null when the group is too big to
+  // enumerate.
+  Solution enumerate()
+  {
+    if (cells.length > MAX_CELLS)
+    {
+      return null;
+    }
+    Enumeration enumeration = new Enumeration();
+    if (!enumeration.run())
+    {
+      return null;
+    }
+    return enumeration.solution();
+  }
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o)
+    {
+      return true;
+    }
+    if (!(o instanceof ConstraintGroup other))
+    {
+      return false;
+    }
+    return hash == other.hash
+        && Arrays.equals(cells, other.cells)
+        && Arrays.equals(constraints, other.constraints)
+        && Arrays.equals(targets, other.targets);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return hash;
+  }
+
+  // ways[k] is the weight of assignments with k mines; cellWays[k][i] the part of it with a mine
+  // on cells[i]. Both are scaled so that the largest way count is 1.
+  record Solution(double[] ways, double[][] cellWays)
+  {
+  }
+
+  private class Enumeration
+  {
+    private final int[][] cellConstraints;
+    private final int[] mines;
+    private final int[] unassigned;
+    private final boolean[] mined;
+    private final double[] ways;
+    private final double[][] cellWays;
+    private long nodes;
+
+    Enumeration()
+    {
+      int[] perCell = new int[cells.length];
+      for (int[] member : members)
+      {
+        for (int cell : member)
+        {
+          perCell[cell]++;
+        }
+      }
+      this.cellConstraints = new int[cells.length][];
+      for (int cell = 0; cell < cells.length; cell++)
+      {
+        cellConstraints[cell] = new int[perCell[cell]];
+        perCell[cell] = 0;
+      }
+      this.unassigned = new int[members.length];
+      for (int c = 0; c < members.length; c++)
+      {
+        unassigned[c] = members[c].length;
+        for (int cell : members[c])
+        {
+          cellConstraints[cell][perCell[cell]++] = c;
+        }
+      }
+      this.mines = new int[members.length];
+      this.mined = new boolean[cells.length];
+      this.ways = new double[cells.length + 1];
+      this.cellWays = new double[cells.length + 1][cells.length];
+    }
+
+    boolean run()
+    {
+      return assign(0, 0);
+    }
+
+    // Returns false once the node budget runs out.
+    private boolean assign(int cell, int mineCount)
+    {
+      if (++nodes > MAX_NODES)
+      {
+        return false;
+      }
+      if (cell == cells.length)
+      {
+        ways[mineCount]++;
+        for (int i = 0; i < cells.length; i++)
+        {
+          if (mined[i])
+          {
+            cellWays[mineCount][i]++;
+          }
+        }
+        return true;
+      }
+      for (int value = 0; value <= 1; value++)
+      {
+        if (place(cell, value))
+        {
+          mined[cell] = value == 1;
+          boolean finished = assign(cell + 1, mineCount + value);
+          mined[cell] = false;
+          unplace(cell, value);
+          if (!finished)
+          {
+            return false;
+          }
+        }
+        else
+        {
+          unplace(cell, value);
+        }
+      }
+      return true;
+    }
+
+    // Applies the value to every constraint on the cell and reports whether all stay satisfiable.
+    private boolean place(int cell, int value)
+    {
+      boolean feasible = true;
+      for (int c : cellConstraints[cell])
+      {
+        mines[c] += value;
+        unassigned[c]--;
+        feasible &= mines[c] <= targets[c] && mines[c] + unassigned[c] >= targets[c];
+      }
+      return feasible;
+    }
+
+    private void unplace(int cell, int value)
+    {
+      for (int c : cellConstraints[cell])
+      {
+        mines[c] -= value;
+        unassigned[c]++;
+      }
+    }
+
+    Solution solution()
+    {
+      double max = 0;
+      for (double w : ways)
+      {
+        max = Math.max(max, w);
+      }
+      if (max > 0)
+      {
+        for (int k = 0; k < ways.length; k++)
+        {
+          ways[k] /= max;
+          for (int i = 0; i < cells.length; i++)
+          {
+            cellWays[k][i] /= max;
+          }
+        }
+      }
+      return new Solution(ways, cellWays);
+    }
+  }
+}
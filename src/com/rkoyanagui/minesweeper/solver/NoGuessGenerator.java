@@ -0,0 +1,170 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.Square;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Finds mine layouts that the Solver clears from a given first click without ever guessing. A
+// layout is a seed, so the result goes to Field.reset(long) and journals and snapshots record it
+// as usual. One worker per thread of the pool tries seeds from its own random stream, and the
+// first seed that passes stops the rest. Which worker wins depends on timing, so unlike the
+// SimulationRunner the seed found is not reproducible.
+public class NoGuessGenerator
+{
+  // Enough for expert boards many times over; denser ones may have no no-guess layout at all.
+  private static final long MAX_CANDIDATES = 1_000_000;
+
+  private final int width;
+  private final int height;
+  private final int mineCount;
+  private final ForkJoinPool pool;
+  private final SplittableRandom random;
+  private long candidates;
+
+  public NoGuessGenerator(int width, int height, int mineCount, long seed)
+  {
+    this(width, height, mineCount, seed, ForkJoinPool.commonPool());
+  }
+
+  public NoGuessGenerator(int width, int height, int mineCount, long seed, ForkJoinPool pool)
+  {
+    // Checked here rather than left to the worker fields, whose errors would only come back
+    // wrapped from the pool.
+    if (width < 1 || height < 1)
+    {
+      throw new IllegalArgumentException("A field needs at least one square");
+    }
+    if ((long) width * height > Integer.MAX_VALUE)
+    {
+      throw new IllegalArgumentException(
+          "A " + width + "x" + height + " field has more squares than a field can hold");
+    }
+    if (mineCount < 0)
+    {
+      throw new IllegalArgumentException("mineCount must not be negative: " + mineCount);
+    }
+    // The smallest opening is a corner's; generate checks the one around its start square.
+    if (mineCount > width * height - openingSize(0, 0, width, height))
+    {
+      throw new IllegalArgumentException(mineCount + " mines leave no room for an opening in a "
+          + width + "x" + height + " field");
+    }
+    this.width = width;
+    this.height = height;
+    this.mineCount = mineCount;
+    this.pool = pool;
+    this.random = new SplittableRandom(seed);
+  }
+
+  // The seed of a layout where (x, y) opens with a zero and the rest follows by deduction.
+  public long generate(int x, int y)
+  {
+    if (x < 0 || x >= width || y < 0 || y >= height)
+    {
+      throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the field");
+    }
+    if (mineCount > width * height - openingSize(x, y, width, height))
+    {
+      throw new IllegalArgumentException(mineCount + " mines leave no room for an opening at ("
+          + x + ", " + y + ") in a " + width + "x" + height + " field");
+    }
+    AtomicBoolean found = new AtomicBoolean();
+    AtomicLong tried = new AtomicLong();
+    List<Callable<Long>> workers = new ArrayList<>();
+    for (int w = 0; w < pool.getParallelism(); w++)
+    {
+      SplittableRandom stream = random.split();
+      workers.add(() -> search(x, y, stream, found, tried));
+    }
+    // invokeAll returns once every worker has stopped, the losers on the flag the winner set, so
+    // the candidate count read afterwards is final.
+    List<Future<Long>> results;
+    try
+    {
+      results = pool.invokeAll(workers);
+    }
+    finally
+    {
+      found.set(true);
+    }
+    candidates += tried.get();
+    try
+    {
+      for (Future<Long> result : results)
+      {
+        Long seed = result.get();
+        if (seed != null)
+        {
+          return seed;
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while generating a layout");
+    }
+    catch (ExecutionException e)
+    {
+      throw new IllegalStateException("A worker failed while generating a layout", e);
+    }
+    throw new IllegalStateException("No layout of " + mineCount + " mines in " + width + "x"
+        + height + " could be solved without guessing after " + tried.get() + " candidates");
+  }
+
+  // The squares that must be safe for (x, y) to open with a zero: itself and its neighbours.
+  private static int openingSize(int x, int y, int width, int height)
+  {
+    int columns = Math.min(x + 1, width - 1) - Math.max(x - 1, 0) + 1;
+    int rows = Math.min(y + 1, height - 1) - Math.max(y - 1, 0) + 1;
+    return columns * rows;
+  }
+
+  // How many layouts all the calls to generate have tried, the winners included.
+  public long getCandidates()
+  {
+    return candidates;
+  }
+
+  // Returns the seed found, or null once another worker has found one or the candidates run out.
+  private Long search(int x, int y, SplittableRandom stream, AtomicBoolean found,
+      AtomicLong tried)
+  {
+    Field field = new Field(width, height, mineCount, stream.split());
+    // Candidates are not games anyone played.
+    field.setMetrics(FieldMetrics.NONE);
+    Solver solver = new Solver(field, stream.split());
+    while (!found.get() && tried.incrementAndGet() <= MAX_CANDIDATES)
+    {
+      long seed = stream.nextLong();
+      field.reset(seed);
+      if (isSolvable(field, solver, x, y) && found.compareAndSet(false, true))
+      {
+        return seed;
+      }
+    }
+    return null;
+  }
+
+  private static boolean isSolvable(Field field, Solver solver, int x, int y)
+  {
+    Square first = field.getSquare(x, y);
+    if (first.isMined() || first.surroundingMineCount() > 0)
+    {
+      return false;
+    }
+    field.play(Move.uncover(x, y));
+    return solver.solveWithoutGuessing();
+  }
+}
@@ -0,0 +1,512 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.FieldDelta;
+import com.rkoyanagui.minesweeper.model.Neighbourhood;
+import com.rkoyanagui.minesweeper.solver.ConstraintGroup.Solution;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Mine probabilities for every hidden cell, from the exposed numbers and the field's mine count.
+// Flags are ignored, so a flag shows how sure it is. Hidden cells next to an exposed number are
+// split into groups that share no number; each group is enumerated on its own and the groups are
+// weighted together by how many ways the remaining mines fit in the cells no number touches.
+// Groups are kept from one move to the next and only those a move touched are split up and
+// rebuilt, and group solutions are cached, so a move only costs the enumeration of the groups it
+// changed.
+// Like the field, an engine must only be used from the thread that plays the field.
+public class ProbabilityEngine
+{
+  private static final int PARALLEL_CELLS = 32;
+  // Marks a group too big to enumerate; its cells are weighted as if no number touched them.
+  private static final Solution UNSOLVED = new Solution(new double[0], new double[0][]);
+
+  private final Field field;
+  private final int width;
+  private final int height;
+  private final BitSet exposed;
+  private final BitSet exposedMines;
+  private final BitSet numbers;
+  private final int[] frontierIds;
+  // The group each frontier cell and each number is in; null for cells in no group and for
+  // numbers waiting in stale to be grouped again.
+  private final ConstraintGroup[] groupOf;
+  private final Set<ConstraintGroup> groups;
+  private final BitSet queued;
+  private int[] stale;
+  private int staleSize;
+  private Map<ConstraintGroup, Solution> solutions;
+  private double[] probabilities;
+  private int hiddenCount;
+  private long enumerations;
+
+  public ProbabilityEngine(Field field)
+  {
+    this.field = field;
+    this.width = field.getWidth();
+    this.height = field.getHeight();
+    int size = width * height;
+    this.exposed = new BitSet(size);
+    this.exposedMines = new BitSet(size);
+    this.numbers = new BitSet(size);
+    this.frontierIds = new int[size];
+    Arrays.fill(frontierIds, -1);
+    this.groupOf = new ConstraintGroup[size];
+    this.groups = new LinkedHashSet<>();
+    this.queued = new BitSet(size);
+    this.stale = new int[64];
+    this.solutions = new HashMap<>();
+    this.hiddenCount = size;
+    for (int cell = 0; cell < size; cell++)
+    {
+      refreshExposed(cell);
+    }
+    for (int cell = 0; cell < size; cell++)
+    {
+      refreshNumber(cell);
+      markStale(cell);
+    }
+    field.registerFieldObserver(delta -> update(delta));
+  }
+
+  public double getProbability(int x, int y)
+  {
+    return probabilities()[y * width + x];
+  }
+
+  // Indexed by y * width + x. Exposed cells are 0, or 1 for a mine exposed by a lost game.
+  public double[] getProbabilities()
+  {
+    return probabilities().clone();
+  }
+
+  // How many groups had to be enumerated so far, rather than taken from the cache.
+  public long getEnumerations()
+  {
+    return enumerations;
+  }
+
+  // Only cells whose exposed state changed can change a number or a group; flags change neither.
+  protected void update(FieldDelta delta)
+  {
+    int[] neighbours = new int[Neighbourhood.MAX_SIZE];
+    boolean changed = false;
+    for (int cell : delta.cells())
+    {
+      changed |= refreshExposed(cell);
+    }
+    if (!changed)
+    {
+      return;
+    }
+    for (int cell : delta.cells())
+    {
+      refreshNumber(cell);
+      markStale(cell);
+      int count = neighbours(cell, neighbours);
+      for (int n = 0; n < count; n++)
+      {
+        refreshNumber(neighbours[n]);
+        markStale(neighbours[n]);
+      }
+    }
+    probabilities = null;
+  }
+
+  // Returns whether the cell was exposed or hidden, or turned out to be a mine, since last seen.
+  private boolean refreshExposed(int cell)
+  {
+    int x = cell % width;
+    int y = cell / width;
+    boolean isExposed = field.isExposed(x, y);
+    boolean changed = isExposed != exposed.get(cell);
+    if (changed)
+    {
+      hiddenCount += isExposed ? -1 : 1;
+      exposed.set(cell, isExposed);
+    }
+    boolean isMine = isExposed && field.isMined(x, y);
+    changed |= isMine != exposedMines.get(cell);
+    exposedMines.set(cell, isMine);
+    return changed;
+  }
+
+  // A number constrains the hidden cells around it while it has any.
+  private void refreshNumber(int cell)
+  {
+    boolean isNumber = exposed.get(cell) && !exposedMines.get(cell);
+    if (isNumber)
+    {
+      int[] neighbours = new int[Neighbourhood.MAX_SIZE];
+      int count = neighbours(cell, neighbours);
+      isNumber = false;
+      for (int n = 0; n < count && !isNumber; n++)
+      {
+        isNumber = !exposed.get(neighbours[n]);
+      }
+    }
+    numbers.set(cell, isNumber);
+  }
+
+  private double[] probabilities()
+  {
+    if (probabilities == null)
+    {
+      probabilities = compute();
+    }
+    return probabilities;
+  }
+
+  private double[] compute()
+  {
+    regroup();
+    Map<ConstraintGroup, Solution> next = new HashMap<>();
+    List<ConstraintGroup> unknown = new ArrayList<>();
+    int unknownCells = 0;
+    for (ConstraintGroup group : groups)
+    {
+      Solution solution = solutions.get(group);
+      if (solution == null)
+      {
+        unknown.add(group);
+        unknownCells += group.size();
+      }
+      else
+      {
+        next.put(group, solution);
+      }
+    }
+    // Small groups enumerate faster than a parallel stream starts up.
+    List<Solution> solved = (unknown.size() > 1 && unknownCells >= PARALLEL_CELLS
+        ? unknown.parallelStream() : unknown.stream())
+        .map(g -> g.enumerate())
+        .map(s -> s == null ? UNSOLVED : s)
+        .toList();
+    for (int i = 0; i < unknown.size(); i++)
+    {
+      next.put(unknown.get(i), solved.get(i));
+    }
+    enumerations += unknown.size();
+    solutions = next;
+    return combine(new ArrayList<>(groups));
+  }
+
+  // Takes a changed cell's group apart, and queues the cell to be grouped again if it is a number.
+  private void markStale(int cell)
+  {
+    if (groupOf[cell] != null)
+    {
+      dissolve(groupOf[cell]);
+    }
+    queue(cell);
+  }
+
+  private void dissolve(ConstraintGroup group)
+  {
+    groups.remove(group);
+    for (int cell : group.cells())
+    {
+      groupOf[cell] = null;
+    }
+    for (int constraint : group.constraints())
+    {
+      groupOf[constraint] = null;
+      queue(constraint);
+    }
+  }
+
+  private void queue(int cell)
+  {
+    if (!numbers.get(cell) || queued.get(cell))
+    {
+      return;
+    }
+    queued.set(cell);
+    if (staleSize == stale.length)
+    {
+      stale = Arrays.copyOf(stale, staleSize * 2);
+    }
+    stale[staleSize++] = cell;
+  }
+
+  // Splits the hidden cells next to the stale numbers into groups linked by the numbers they
+  // share. A stale number that shares a cell with a group still standing takes that group apart,
+  // so its numbers are grouped here too and the groups stay disjoint.
+  private void regroup()
+  {
+    List<Integer> frontier = new ArrayList<>();
+    List<int[]> hiddenNeighbours = new ArrayList<>();
+    List<Integer> constraintCells = new ArrayList<>();
+    List<Integer> targets = new ArrayList<>();
+    int[] parent = new int[16];
+    int[] neighbours = new int[Neighbourhood.MAX_SIZE];
+    for (int s = 0; s < staleSize; s++)
+    {
+      // A number queued by an earlier move may have had its last hidden neighbour exposed since.
+      int cell = stale[s];
+      if (!numbers.get(cell))
+      {
+        continue;
+      }
+      int count = neighbours(cell, neighbours);
+      int[] hidden = new int[count];
+      int hiddenSize = 0;
+      int target = field.surroundingMineCount(cell % width, cell / width);
+      for (int n = 0; n < count; n++)
+      {
+        int neighbour = neighbours[n];
+        if (exposedMines.get(neighbour))
+        {
+          target--;
+        }
+        else if (!exposed.get(neighbour))
+        {
+          hidden[hiddenSize++] = neighbour;
+          if (groupOf[neighbour] != null)
+          {
+            dissolve(groupOf[neighbour]);
+          }
+          if (frontierIds[neighbour] < 0)
+          {
+            frontierIds[neighbour] = frontier.size();
+            if (frontier.size() == parent.length)
+            {
+              parent = Arrays.copyOf(parent, parent.length * 2);
+            }
+            parent[frontier.size()] = frontier.size();
+            frontier.add(neighbour);
+          }
+        }
+      }
+      hidden = Arrays.copyOf(hidden, hiddenSize);
+      for (int h = 1; h < hiddenSize; h++)
+      {
+        union(parent, frontierIds[hidden[0]], frontierIds[hidden[h]]);
+      }
+      hiddenNeighbours.add(hidden);
+      constraintCells.add(cell);
+      targets.add(target);
+    }
+    for (int s = 0; s < staleSize; s++)
+    {
+      queued.clear(stale[s]);
+    }
+    staleSize = 0;
+
+    Map<Integer, GroupBuilder> builders = new HashMap<>();
+    for (int id = 0; id < frontier.size(); id++)
+    {
+      GroupBuilder builder = builders.computeIfAbsent(find(parent, id), r -> new GroupBuilder());
+      builder.cells.add(frontier.get(id));
+    }
+    for (int c = 0; c < constraintCells.size(); c++)
+    {
+      int[] hidden = hiddenNeighbours.get(c);
+      GroupBuilder builder = builders.get(find(parent, frontierIds[hidden[0]]));
+      builder.constraints.add(constraintCells.get(c));
+      builder.targets.add(targets.get(c));
+      builder.constraintCells.add(hidden);
+    }
+    for (int cell : frontier)
+    {
+      frontierIds[cell] = -1;
+    }
+
+    for (GroupBuilder builder : builders.values())
+    {
+      ConstraintGroup group = builder.build();
+      groups.add(group);
+      for (int cell : group.cells())
+      {
+        groupOf[cell] = group;
+      }
+      for (int constraint : group.constraints())
+      {
+        groupOf[constraint] = group;
+      }
+    }
+  }
+
+  private double[] combine(List<ConstraintGroup> groups)
+  {
+    List<ConstraintGroup> solvedGroups = new ArrayList<>();
+    List<Solution> solved = new ArrayList<>();
+    int frontierCells = 0;
+    for (ConstraintGroup group : groups)
+    {
+      Solution solution = solutions.get(group);
+      if (solution != UNSOLVED)
+      {
+        solvedGroups.add(group);
+        solved.add(solution);
+        frontierCells += group.size();
+      }
+    }
+    int openCells = hiddenCount - frontierCells;
+    int mines = field.getMineCount() - exposedMines.cardinality();
+
+    // weights[t] is proportional to the ways of placing the other mines in the open cells when t
+    // mines are in the solved groups: C(openCells, mines - t).
+    double[] weights = openWeights(openCells, mines, frontierCells);
+
+    // prefix[g] and suffix[g] are the mine-count distributions of groups before and from g.
+    int groupCount = solved.size();
+    double[][] prefix = new double[groupCount + 1][];
+    double[][] suffix = new double[groupCount + 1][];
+    prefix[0] = new double[] { 1 };
+    suffix[groupCount] = new double[] { 1 };
+    for (int g = 0; g < groupCount; g++)
+    {
+      prefix[g + 1] = convolve(prefix[g], solved.get(g).ways());
+    }
+    for (int g = groupCount - 1; g >= 0; g--)
+    {
+      suffix[g] = convolve(suffix[g + 1], solved.get(g).ways());
+    }
+
+    double[] result = new double[width * height];
+    double open = openProbability(prefix[groupCount], weights, mines, openCells);
+    for (int cell = 0; cell < result.length; cell++)
+    {
+      result[cell] = exposed.get(cell) ? (exposedMines.get(cell) ? 1 : 0) : open;
+    }
+    for (int g = 0; g < groupCount; g++)
+    {
+      double[] others = convolve(prefix[g], suffix[g + 1]);
+      Solution solution = solved.get(g);
+      int[] cells = solvedGroups.get(g).cells();
+      double total = 0;
+      double[] cellTotals = new double[cells.length];
+      for (int k = 0; k < solution.ways().length; k++)
+      {
+        double weight = 0;
+        for (int j = 0; j < others.length && k + j < weights.length; j++)
+        {
+          weight += others[j] * weights[k + j];
+        }
+        total += solution.ways()[k] * weight;
+        for (int i = 0; i < cells.length; i++)
+        {
+          cellTotals[i] += solution.cellWays()[k][i] * weight;
+        }
+      }
+      for (int i = 0; i < cells.length; i++)
+      {
+        result[cells[i]] = total > 0 ? cellTotals[i] / total : open;
+      }
+    }
+    return result;
+  }
+
+  // C(open, mines - t) for t = 0..frontier, scaled so that the largest is 1. Built from the ratio
+  // of neighbouring terms, since the binomials themselves overflow on large boards.
+  private static double[] openWeights(int open, int mines, int frontier)
+  {
+    double[] weights = new double[frontier + 1];
+    int first = Math.max(0, mines - open);
+    int last = Math.min(mines, frontier);
+    if (first > last)
+    {
+      return weights;
+    }
+    double[] logs = new double[last + 1];
+    double max = 0;
+    for (int t = first; t < last; t++)
+    {
+      logs[t + 1] = logs[t] + Math.log((double) (mines - t) / (open - mines + t + 1));
+      max = Math.max(max, logs[t + 1]);
+    }
+    for (int t = first; t <= last; t++)
+    {
+      weights[t] = Math.exp(logs[t] - max);
+    }
+    return weights;
+  }
+
+  private static double openProbability(double[] frontier, double[] weights, int mines, int open)
+  {
+    if (open == 0)
+    {
+      return 0;
+    }
+    double total = 0;
+    double minesInOpen = 0;
+    for (int t = 0; t < frontier.length && t < weights.length; t++)
+    {
+      double weight = frontier[t] * weights[t];
+      total += weight;
+      minesInOpen += weight * (mines - t);
+    }
+    return total > 0 ? minesInOpen / total / open : (double) mines / open;
+  }
+
+  // Convolution of two mine-count distributions, scaled so that the largest term is 1.
+  private static double[] convolve(double[] a, double[] b)
+  {
+    double[] result = new double[a.length + b.length - 1];
+    double max = 0;
+    for (int i = 0; i < a.length; i++)
+    {
+      for (int j = 0; j < b.length; j++)
+      {
+        result[i + j] += a[i] * b[j];
+      }
+    }
+    for (double r : result)
+    {
+      max = Math.max(max, r);
+    }
+    if (max > 0)
+    {
+      for (int i = 0; i < result.length; i++)
+      {
+        result[i] /= max;
+      }
+    }
+    return result;
+  }
+
+  private static void union(int[] parent, int a, int b)
+  {
+    parent[find(parent, a)] = find(parent, b);
+  }
+
+  private static int find(int[] parent, int id)
+  {
+    while (parent[id] != id)
+    {
+      parent[id] = parent[parent[id]];
+      id = parent[id];
+    }
+    return id;
+  }
+
+  // Neighbour indices in ascending order.
+  private int neighbours(int cell, int[] into)
+  {
+    return Neighbourhood.indices(cell % width, cell / width, width, height, into);
+  }
+
+  private static class GroupBuilder
+  {
+    private final List<Integer> cells = new ArrayList<>();
+    private final List<Integer> constraints = new ArrayList<>();
+    private final List<Integer> targets = new ArrayList<>();
+    private final List<int[]> constraintCells = new ArrayList<>();
+
+    ConstraintGroup build()
+    {
+      int[] sortedCells = cells.stream().mapToInt(c -> c).sorted().toArray();
+      return new ConstraintGroup(sortedCells,
+          constraints.stream().mapToInt(c -> c).toArray(),
+          targets.stream().mapToInt(t -> t).toArray(),
+          constraintCells.toArray(new int[0][]));
+    }
+  }
+}
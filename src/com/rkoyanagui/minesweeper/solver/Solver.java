@@ -0,0 +1,329 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.FieldDelta;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.MoveOutcome;
+import com.rkoyanagui.minesweeper.model.Neighbourhood;
+import com.rkoyanagui.minesweeper.model.ResultEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.random.RandomGenerator;
+
+// Plays a field using only what a player can see: exposed numbers and flags. Only cells whose
+// neighbourhood changed since they were last looked at are examined again.
+public class Solver
+{
+  private static final int GUESS_ATTEMPTS = 64;
+
+  private final Field field;
+  private final RandomGenerator random;
+  private final int width;
+  private final int height;
+  private final BitSet queued;
+  private final BitSet planned;
+  private final List<Move> moves;
+  private int[] pending;
+  private int pendingSize;
+  private long decidedMoves;
+  private long guesses;
+
+  public Solver(Field field, RandomGenerator random)
+  {
+    this.field = field;
+    this.random = random;
+    this.width = field.getWidth();
+    this.height = field.getHeight();
+    this.queued = new BitSet(width * height);
+    this.planned = new BitSet(width * height);
+    this.moves = new ArrayList<>();
+    this.pending = new int[64];
+    field.registerFieldObserver(delta -> enqueue(delta));
+  }
+
+  public Optional<ResultEvent> solve()
+  {
+    while (step())
+    {
+      // Keep playing until the game is decided.
+    }
+    return field.getResult();
+  }
+
+  // Plays every move that follows from the next cell with something to deduce, or one guess when
+  // nothing can be deduced. Returns false once the game is over.
+  public boolean step()
+  {
+    if (field.getResult().isPresent())
+    {
+      return false;
+    }
+    if (!deduce())
+    {
+      guess();
+    }
+    return field.getResult().isEmpty();
+  }
+
+  // Plays only moves that follow from what is exposed, and returns whether that alone won.
+  public boolean solveWithoutGuessing()
+  {
+    while (field.getResult().isEmpty() && deduce())
+    {
+      // Keep playing until the game is decided or nothing more can be deduced.
+    }
+    return field.getResult().filter(r -> r.isVictorious()).isPresent();
+  }
+
+  // Plays every move that follows from the next cell with something to deduce, if there is one.
+  private boolean deduce()
+  {
+    while (pendingSize > 0 && moves.isEmpty())
+    {
+      int cell = pending[--pendingSize];
+      queued.clear(cell);
+      examine(cell);
+    }
+    if (moves.isEmpty())
+    {
+      return false;
+    }
+    MoveOutcome outcome = field.play(moves);
+    decidedMoves += outcome.applied();
+    moves.clear();
+    planned.clear();
+    return true;
+  }
+
+  public long getDecidedMoves()
+  {
+    return decidedMoves;
+  }
+
+  public long getGuesses()
+  {
+    return guesses;
+  }
+
+  protected void enqueue(FieldDelta delta)
+  {
+    int[] neighbours = new int[Neighbourhood.MAX_SIZE];
+    for (int cell : delta.cells())
+    {
+      enqueue(cell);
+      int count = neighbours(cell, neighbours);
+      for (int n = 0; n < count; n++)
+      {
+        enqueue(neighbours[n]);
+      }
+    }
+  }
+
+  private void enqueue(int cell)
+  {
+    if (queued.get(cell) || !isExposed(cell))
+    {
+      return;
+    }
+    if (pendingSize == pending.length)
+    {
+      pending = Arrays.copyOf(pending, pendingSize * 2);
+    }
+    pending[pendingSize++] = cell;
+    queued.set(cell);
+  }
+
+  private void examine(int cell)
+  {
+    if (!isExposed(cell) || isMined(cell))
+    {
+      // Either the board was reset since the cell was queued, or the game is already lost.
+      return;
+    }
+    Constraint own = constraint(cell);
+    if (own.hidden.length == 0)
+    {
+      return;
+    }
+    if (own.mines == 0)
+    {
+      plan(own.hidden, Move.Type.UNCOVER);
+      return;
+    }
+    if (own.mines == own.hidden.length)
+    {
+      plan(own.hidden, Move.Type.FLAG);
+      return;
+    }
+
+    // Subset rule: cells sharing hidden neighbours with this one are at most two steps away.
+    int x = cell % width;
+    int y = cell / width;
+    for (int py = Math.max(0, y - 2); py <= Math.min(height - 1, y + 2); py++)
+    {
+      for (int px = Math.max(0, x - 2); px <= Math.min(width - 1, x + 2); px++)
+      {
+        int partner = py * width + px;
+        if (partner != cell && isExposed(partner) && !isMined(partner))
+        {
+          Constraint other = constraint(partner);
+          applySubsetRule(own, other);
+          applySubsetRule(other, own);
+        }
+      }
+    }
+  }
+
+  private void applySubsetRule(Constraint smaller, Constraint larger)
+  {
+    if (smaller.hidden.length == 0 || !isSubset(smaller.hidden, larger.hidden))
+    {
+      return;
+    }
+    int[] difference = difference(larger.hidden, smaller.hidden);
+    int mines = larger.mines - smaller.mines;
+    if (difference.length == 0)
+    {
+      return;
+    }
+    if (mines == 0)
+    {
+      plan(difference, Move.Type.UNCOVER);
+    }
+    else if (mines == difference.length)
+    {
+      plan(difference, Move.Type.FLAG);
+    }
+  }
+
+  private void plan(int[] cells, Move.Type type)
+  {
+    for (int cell : cells)
+    {
+      if (!planned.get(cell))
+      {
+        planned.set(cell);
+        moves.add(new Move(type, cell % width, cell / width));
+      }
+    }
+  }
+
+  private void guess()
+  {
+    int cell = -1;
+    int cells = width * height;
+    for (int attempt = 0; attempt < GUESS_ATTEMPTS && cell < 0; attempt++)
+    {
+      int candidate = random.nextInt(cells);
+      if (isUnknown(candidate))
+      {
+        cell = candidate;
+      }
+    }
+    for (int candidate = 0; candidate < cells && cell < 0; candidate++)
+    {
+      if (isUnknown(candidate))
+      {
+        cell = candidate;
+      }
+    }
+    if (cell >= 0)
+    {
+      guesses++;
+      field.play(Move.uncover(cell % width, cell / width));
+    }
+  }
+
+  private boolean isUnknown(int cell)
+  {
+    return !isExposed(cell) && !isFlagged(cell);
+  }
+
+  // The hidden, unflagged neighbours of an exposed cell and how many mines are among them.
+  private Constraint constraint(int cell)
+  {
+    int[] neighbours = new int[Neighbourhood.MAX_SIZE];
+    int count = neighbours(cell, neighbours);
+    int[] hidden = new int[count];
+    int hiddenCount = 0;
+    int flags = 0;
+    for (int n = 0; n < count; n++)
+    {
+      if (isFlagged(neighbours[n]))
+      {
+        flags++;
+      }
+      else if (!isExposed(neighbours[n]))
+      {
+        hidden[hiddenCount++] = neighbours[n];
+      }
+    }
+    return new Constraint(Arrays.copyOf(hidden, hiddenCount),
+        field.surroundingMineCount(cell % width, cell / width) - flags);
+  }
+
+  // Neighbour indices in ascending order.
+  private int neighbours(int cell, int[] into)
+  {
+    return Neighbourhood.indices(cell % width, cell / width, width, height, into);
+  }
+
+  private static boolean isSubset(int[] small, int[] large)
+  {
+    int j = 0;
+    for (int cell : small)
+    {
+      while (j < large.length && large[j] < cell)
+      {
+        j++;
+      }
+      if (j == large.length || large[j] != cell)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int[] difference(int[] large, int[] small)
+  {
+    int[] result = new int[large.length];
+    int count = 0;
+    int j = 0;
+    for (int cell : large)
+    {
+      while (j < small.length && small[j] < cell)
+      {
+        j++;
+      }
+      if (j == small.length || small[j] != cell)
+      {
+        result[count++] = cell;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private boolean isExposed(int cell)
+  {
+    return field.isExposed(cell % width, cell / width);
+  }
+
+  private boolean isFlagged(int cell)
+  {
+    return field.isFlagged(cell % width, cell / width);
+  }
+
+  // Only asked of exposed cells, which the player can see.
+  private boolean isMined(int cell)
+  {
+    return field.isMined(cell % width, cell / width);
+  }
+
+  private record Constraint(int[] hidden, int mines)
+  {
+  }
+}
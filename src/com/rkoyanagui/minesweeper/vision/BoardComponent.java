@@ -0,0 +1,294 @@
+package com.rkoyanagui.minesweeper.vision;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.FieldDelta;
+import com.rkoyanagui.minesweeper.model.Move;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.io.Serial;
+import java.util.concurrent.Executor;
+import javax.swing.BorderFactory;
+import javax.swing.CellRendererPane;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.Timer;
+import javax.swing.border.Border;
+
+public class BoardComponent extends JComponent implements Scrollable, MouseListener
+{
+  private static final Color FLAGGED_BG = new Color(8, 179, 247);
+  private static final Color EXPLODED_BG = new Color(189, 66, 68);
+  private static final Color DEFAULT_BG = new Color(184, 184, 184);
+  private static final Color GREEN_TEXT = new Color(0, 100, 0);
+  private static final Border RAISED = BorderFactory.createBevelBorder(0);
+  private static final Border FLAT = BorderFactory.createLineBorder(Color.GRAY);
+  private static final int MIN_CELL_SIZE = 20;
+  private static final int FRAME_MILLIS = 16;
+
+  // Tile indices; an exposed safe cell uses EXPOSED plus its surrounding mine count.
+  private static final int HIDDEN = 0;
+  private static final int FLAGGED = 1;
+  private static final int EXPLODED = 2;
+  private static final int MINE = 3;
+  private static final int EXPOSED = 4;
+  private static final int TILE_COUNT = EXPOSED + 9;
+
+  private final Field field;
+  private final Executor game;
+  private final CellRendererPane rendererPane;
+  private final Rectangle dirtyCells;
+  private final Timer frameTimer;
+  private BufferedImage[] tiles;
+  private int tileWidth;
+  private int tileHeight;
+
+  public BoardComponent(Field field, Executor game)
+  {
+    this.field = field;
+    this.game = game;
+    this.rendererPane = new CellRendererPane();
+    this.dirtyCells = new Rectangle();
+    this.frameTimer = new Timer(FRAME_MILLIS, e -> repaintDirtyCells());
+    add(rendererPane);
+    setOpaque(true);
+    setBackground(DEFAULT_BG);
+    setPreferredSize(new Dimension(
+        field.getWidth() * MIN_CELL_SIZE, field.getHeight() * MIN_CELL_SIZE));
+    addMouseListener(this);
+    field.registerFieldObserver(delta -> markDirty(delta));
+  }
+
+  @Serial
+  private static final long serialVersionUID = 2573517400262406384L;
+
+  // Called on the game thread. Deltas are merged here and painted at most once per frame; the
+  // frame timer only runs while there is something to paint.
+  protected void markDirty(FieldDelta delta)
+  {
+    Rectangle cells = new Rectangle(delta.minX(), delta.minY(),
+        delta.maxX() - delta.minX() + 1, delta.maxY() - delta.minY() + 1);
+    synchronized (dirtyCells)
+    {
+      if (dirtyCells.isEmpty())
+      {
+        dirtyCells.setBounds(cells);
+        frameTimer.start();
+      }
+      else
+      {
+        dirtyCells.add(cells);
+      }
+    }
+  }
+
+  private void repaintDirtyCells()
+  {
+    Rectangle cells;
+    synchronized (dirtyCells)
+    {
+      frameTimer.stop();
+      if (dirtyCells.isEmpty())
+      {
+        return;
+      }
+      cells = new Rectangle(dirtyCells);
+      dirtyCells.setSize(0, 0);
+    }
+    int w = cellWidth();
+    int h = cellHeight();
+    repaint(cells.x * w, cells.y * h, cells.width * w, cells.height * h);
+  }
+
+  @Override
+  protected void paintComponent(Graphics g)
+  {
+    int w = cellWidth();
+    int h = cellHeight();
+    if (tiles == null || w != tileWidth || h != tileHeight)
+    {
+      tiles = paintTiles(w, h);
+      tileWidth = w;
+      tileHeight = h;
+    }
+
+    Rectangle clip = g.getClipBounds();
+    if (clip == null)
+    {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    g.setColor(getBackground());
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+    int firstX = Math.max(0, clip.x / w);
+    int firstY = Math.max(0, clip.y / h);
+    int lastX = Math.min(field.getWidth() - 1, (clip.x + clip.width - 1) / w);
+    int lastY = Math.min(field.getHeight() - 1, (clip.y + clip.height - 1) / h);
+    for (int y = firstY; y <= lastY; y++)
+    {
+      for (int x = firstX; x <= lastX; x++)
+      {
+        g.drawImage(tiles[tileOf(x, y)], x * w, y * h, null);
+      }
+    }
+  }
+
+  // Read from the field directly, since a Square per cell per frame is garbage for nothing.
+  private int tileOf(int x, int y)
+  {
+    if (field.isExposed(x, y))
+    {
+      if (field.isMined(x, y))
+      {
+        return field.isExploded(x, y) ? EXPLODED : MINE;
+      }
+      return EXPOSED + field.surroundingMineCount(x, y);
+    }
+    return field.isFlagged(x, y) ? FLAGGED : HIDDEN;
+  }
+
+  // Each tile is a snapshot of a button styled the way the old per-cell buttons were, so the
+  // board looks the same while painting a cell is a single image copy.
+  private BufferedImage[] paintTiles(int w, int h)
+  {
+    JButton template = new JButton();
+    template.setOpaque(true);
+    BufferedImage[] images = new BufferedImage[TILE_COUNT];
+    for (int tile = 0; tile < TILE_COUNT; tile++)
+    {
+      applyStyle(template, tile);
+      BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+      Graphics2D g = image.createGraphics();
+      rendererPane.paintComponent(g, template, this, 0, 0, w, h, true);
+      g.dispose();
+      images[tile] = image;
+    }
+    rendererPane.removeAll();
+    return images;
+  }
+
+  private static void applyStyle(JButton button, int tile)
+  {
+    button.setBackground(DEFAULT_BG);
+    button.setForeground(Color.BLACK);
+    button.setBorder(RAISED);
+    button.setText("");
+    switch (tile)
+    {
+      case HIDDEN ->
+      {
+      }
+      case FLAGGED ->
+      {
+        button.setBackground(FLAGGED_BG);
+        button.setText("F");
+      }
+      case EXPLODED ->
+      {
+        button.setBackground(EXPLODED_BG);
+        button.setForeground(Color.WHITE);
+        button.setText("X");
+      }
+      case MINE ->
+      {
+        button.setBorder(FLAT);
+        button.setText("M");
+      }
+      default ->
+      {
+        int count = tile - EXPOSED;
+        button.setBorder(FLAT);
+        if (count > 0)
+        {
+          button.setForeground(countColour(count));
+          button.setText(String.valueOf(count));
+        }
+      }
+    }
+  }
+
+  private static Color countColour(int count)
+  {
+    return switch (count)
+    {
+      case 1 -> GREEN_TEXT;
+      case 2 -> Color.BLUE;
+      case 3 -> Color.YELLOW;
+      case 4, 5, 6 -> Color.RED;
+      case 7, 8 -> Color.MAGENTA;
+      default -> Color.BLACK;
+    };
+  }
+
+  private int cellWidth()
+  {
+    return Math.max(1, getWidth() / field.getWidth());
+  }
+
+  private int cellHeight()
+  {
+    return Math.max(1, getHeight() / field.getHeight());
+  }
+
+  @Override
+  public void mousePressed(MouseEvent e)
+  {
+    int x = e.getX() / cellWidth();
+    int y = e.getY() / cellHeight();
+    if (x >= field.getWidth() || y >= field.getHeight())
+    {
+      return;
+    }
+    Move move = e.getButton() == 1 ? Move.uncover(x, y) : Move.flag(x, y);
+    game.execute(() -> field.play(move));
+  }
+
+  public void mouseClicked(MouseEvent e) { /* Fall through. */ }
+
+  public void mouseReleased(MouseEvent e) { /* Fall through. */ }
+
+  public void mouseEntered(MouseEvent e) { /* Fall through. */ }
+
+  public void mouseExited(MouseEvent e) { /* Fall through. */ }
+
+  @Override
+  public Dimension getPreferredScrollableViewportSize()
+  {
+    return getPreferredSize();
+  }
+
+  @Override
+  public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction)
+  {
+    return orientation == SwingConstants.VERTICAL ? cellHeight() : cellWidth();
+  }
+
+  @Override
+  public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction)
+  {
+    return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+  }
+
+  // Small boards stretch to fill the viewport, like the old grid did; large ones scroll.
+  @Override
+  public boolean getScrollableTracksViewportWidth()
+  {
+    return getParent() instanceof JViewport viewport
+        && viewport.getWidth() > getPreferredSize().width;
+  }
+
+  @Override
+  public boolean getScrollableTracksViewportHeight()
+  {
+    return getParent() instanceof JViewport viewport
+        && viewport.getHeight() > getPreferredSize().height;
+  }
+}
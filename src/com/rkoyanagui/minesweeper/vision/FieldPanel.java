@@ -1,18 +1,20 @@
 package com.rkoyanagui.minesweeper.vision;
 
 import com.rkoyanagui.minesweeper.model.Field;
-import java.awt.GridLayout;
+import java.awt.BorderLayout;
 import java.io.Serial;
+import java.util.concurrent.Executor;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 
 public class FieldPanel extends JPanel
 {
-  public FieldPanel(Field field)
+  public FieldPanel(Field field, Executor game)
   {
-    setLayout(new GridLayout(field.getHeight(), field.getWidth()));
-    field.forEach(s -> add(new SquareButton(s)));
+    setLayout(new BorderLayout());
+    add(new JScrollPane(new BoardComponent(field, game)), BorderLayout.CENTER);
     field.registerObserver(event -> SwingUtilities.invokeLater(() ->
     {
       if (event.isVictorious())
@@ -23,7 +25,7 @@ public class FieldPanel extends JPanel
       {
         JOptionPane.showMessageDialog(this, "Defeat ¯\\_(ツ)_/¯");
       }
-      field.reset();
+      game.execute(() -> field.reset());
     }));
   }
 
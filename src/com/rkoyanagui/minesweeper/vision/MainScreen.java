@@ -1,7 +1,13 @@
 package com.rkoyanagui.minesweeper.vision;
 
+import com.rkoyanagui.minesweeper.metrics.FieldMetrics;
 import com.rkoyanagui.minesweeper.model.Field;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.Serial;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JFrame;
 
 public class MainScreen extends JFrame
@@ -9,7 +15,26 @@ public class MainScreen extends JFrame
   public MainScreen()
   {
     Field field = new Field(30, 16, 50);
-    add(new FieldPanel(field));
+    // The next game's mines are laid while this one is played, so a new game starts at once.
+    field.setLayoutExecutor(ForkJoinPool.commonPool());
+    // The field is only ever touched from this thread; Swing just paints what it reports.
+    ExecutorService game = Executors.newSingleThreadExecutor(r ->
+    {
+      Thread thread = new Thread(r, "minesweeper-game");
+      thread.setDaemon(true);
+      return thread;
+    });
+    add(new FieldPanel(field, game));
+    addWindowListener(new WindowAdapter()
+    {
+      @Override
+      public void windowClosed(WindowEvent e)
+      {
+        // Queued moves still run, so the last of them are counted before the field goes.
+        game.execute(() -> field.flushMetrics());
+        game.shutdown();
+      }
+    });
 
     setTitle("Minesweeper");
     setSize(690, 438);
@@ -20,6 +45,7 @@ public class MainScreen extends JFrame
 
   public static void main(String[] args)
   {
+    FieldMetrics.registerGlobal();
     new MainScreen();
   }
 
@@ -0,0 +1,238 @@
+package com.rkoyanagui.minesweeper.host;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.Square;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameHostTest
+{
+  private ExecutorService workers;
+  private GameHost host;
+
+  @BeforeEach
+  void startHost() throws IOException
+  {
+    workers = Executors.newFixedThreadPool(2);
+    host = new GameHost(0, workers, Duration.ZERO).start();
+  }
+
+  @AfterEach
+  void stopHost() throws IOException
+  {
+    host.close();
+    workers.shutdown();
+  }
+
+  @Test
+  void playsLikeAFieldTest() throws IOException
+  {
+    try (Client client = new Client(host.getPort()))
+    {
+      long seed = Long.parseLong(client.send("NEW 16 16 40 7").substring(3));
+      Field field = new Field(16, 16, 40, new SplittableRandom(7));
+      assertEquals(field.getSeed(), seed);
+
+      SplittableRandom random = new SplittableRandom(8);
+      while (field.getResult().isEmpty())
+      {
+        int x = random.nextInt(16);
+        int y = random.nextInt(16);
+        boolean flag = random.nextInt(4) == 0;
+        String reply = client.send((flag ? "FLAG " : "UNCOVER ") + x + " " + y);
+        field.play(flag ? Move.flag(x, y) : Move.uncover(x, y));
+        assertTrue(reply.startsWith("OK "), reply);
+      }
+      String state = field.getResult().get().isVictorious() ? "WON" : "LOST";
+      assertEquals("OK 16 16 " + state + " " + render(field), client.send("SNAPSHOT"));
+    }
+  }
+
+  @Test
+  void manySessionsTest() throws IOException
+  {
+    List<Client> clients = new ArrayList<>();
+    try
+    {
+      for (int i = 0; i < 50; i++)
+      {
+        Client client = new Client(host.getPort());
+        clients.add(client);
+        client.send("NEW 9 9 10 " + i);
+      }
+      for (Client client : clients)
+      {
+        assertEquals("OK 1 0 PLAYING", client.send("FLAG 0 0"));
+      }
+      assertEquals(50, host.getSessionCount());
+    }
+    finally
+    {
+      for (Client client : clients)
+      {
+        client.close();
+      }
+    }
+  }
+
+  @Test
+  void errorsTest() throws IOException
+  {
+    try (Client client = new Client(host.getPort()))
+    {
+      assertTrue(client.send("UNCOVER 1 1").startsWith("ERR no game"));
+      assertTrue(client.send("JUMP").startsWith("ERR unknown command"));
+      assertTrue(client.send("NEW 9 nine 10").startsWith("ERR not a number"));
+      assertTrue(client.send("NEW 9 9 100").startsWith("ERR "));
+      assertTrue(client.send("NEW 100000 100000 1").startsWith("ERR "));
+      client.send("NEW 9 9 10");
+      assertTrue(client.send("FLAG 1").startsWith("ERR usage"));
+      assertEquals("OK 0 0 PLAYING", client.send("UNCOVER 20 20"));
+    }
+  }
+
+  @Test
+  void closeTest() throws IOException
+  {
+    try (Client client = new Client(host.getPort()))
+    {
+      client.send("NEW 9 9 10");
+      assertEquals("OK", client.send("CLOSE"));
+      assertNull(client.in.readLine());
+    }
+  }
+
+  @Test
+  void parksIdleSessionsTest() throws IOException, InterruptedException
+  {
+    try (Client client = new Client(host.getPort()))
+    {
+      client.send("NEW 9 9 10 3");
+      client.send("FLAG 4 4");
+      long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (host.parkedCount() == 0 && System.nanoTime() < deadline)
+      {
+        Thread.sleep(50);
+      }
+      assertEquals(1, host.parkedCount());
+      String squares = "#".repeat(40) + "F" + "#".repeat(40);
+      assertEquals("OK 9 9 PLAYING " + squares, client.send("SNAPSHOT"));
+    }
+  }
+
+  @Test
+  void pipelinedCommandsTest() throws IOException
+  {
+    try (Client client = new Client(host.getPort()))
+    {
+      client.send("NEW 9 9 10 3");
+      int count = 40 * Session.MAX_QUEUED;
+      StringBuilder commands = new StringBuilder();
+      for (int i = 0; i < count; i++)
+      {
+        commands.append("FLAG 4 4\n");
+      }
+      // Sent in one go and only then read, so most of it is held back while the host waits for
+      // the replies to be taken.
+      client.out.print(commands);
+      client.out.flush();
+      for (int i = 0; i < count; i++)
+      {
+        assertEquals("OK 1 0 PLAYING", client.in.readLine());
+      }
+      assertEquals("OK 1 0 PLAYING", client.send("FLAG 0 0"));
+    }
+  }
+
+  @Test
+  void sessionSurvivesAnErrorTest()
+  {
+    List<String> ran = new ArrayList<>();
+    Session session = new Session(null, 0)
+    {
+      @Override
+      protected String run(String command)
+      {
+        ran.add(command);
+        if (command.equals("FAIL"))
+        {
+          throw new OutOfMemoryError();
+        }
+        return "OK";
+      }
+    };
+    session.enqueue("FAIL", 0);
+    session.enqueue("NEXT", 0);
+    assertTrue(session.schedule());
+    assertThrows(OutOfMemoryError.class, () -> session.drain());
+    assertTrue(session.schedule());
+    session.drain();
+    assertEquals(List.of("FAIL", "NEXT"), ran);
+    assertEquals(1, session.getReplies().size());
+  }
+
+  private static String render(Field field)
+  {
+    StringBuilder text = new StringBuilder();
+    for (Square square : field.getSquares())
+    {
+      if (square.isExposed())
+      {
+        text.append(square.isMined() ? '*' : (char) ('0' + square.surroundingMineCount()));
+      }
+      else
+      {
+        text.append(square.isFlagged() ? 'F' : '#');
+      }
+    }
+    return text.toString();
+  }
+
+  private static class Client implements AutoCloseable
+  {
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    Client(int port) throws IOException
+    {
+      this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+      this.in = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      this.out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+    }
+
+    String send(String command) throws IOException
+    {
+      out.print(command + "\n");
+      out.flush();
+      return in.readLine();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package com.rkoyanagui.minesweeper.journal;
+
+import static com.rkoyanagui.minesweeper.model.FieldAssertions.assertSameField;
+import static com.rkoyanagui.minesweeper.model.FieldAssertions.channel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MoveJournalTest
+{
+  private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1234), ZoneOffset.UTC);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replayTest() throws IOException
+  {
+    Path path = directory.resolve("game.journal");
+    Field field = new Field(30, 16, 99, new SplittableRandom(1));
+    try (MoveJournal journal = MoveJournal.create(field, path))
+    {
+      playRandomly(journal, new SplittableRandom(2), 500);
+    }
+    JournalReplay replay = JournalReplay.read(path);
+    assertEquals(500, replay.getMoveCount());
+    assertEquals(field.getSeed(), replay.getSeed());
+    assertSameField(field, replay.replay());
+  }
+
+  @Test
+  void fieldAtTest() throws IOException
+  {
+    Field field = new Field(16, 16, 10, new SplittableRandom(3));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    List<Move> moves;
+    try (MoveJournal journal = new MoveJournal(field, Channels.newChannel(out), CLOCK))
+    {
+      moves = playRandomly(journal, new SplittableRandom(4), 300);
+    }
+    JournalReplay replay = JournalReplay.read(channel(out.toByteArray()), 32);
+    for (int n : new int[] { 0, 1, 31, 32, 33, 150, 64, 299, 300 })
+    {
+      Field expected = new Field(16, 16, 10);
+      expected.reset(field.getSeed());
+      expected.play(moves.subList(0, n));
+      assertSameField(expected, replay.fieldAt(n));
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> replay.fieldAt(301));
+  }
+
+  @Test
+  void recordsMovesAndTimesTest() throws IOException
+  {
+    Field field = new Field(9, 9, 10);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (MoveJournal journal = new MoveJournal(field, Channels.newChannel(out), CLOCK))
+    {
+      journal.play(Move.flag(1, 2), Move.chord(3, 4));
+    }
+    JournalReplay replay = JournalReplay.read(channel(out.toByteArray()), 16);
+    assertEquals(Move.flag(1, 2), replay.getMove(0));
+    assertEquals(Move.chord(3, 4), replay.getMove(1));
+    assertEquals(1234, replay.getStartMillis());
+    assertEquals(1234, replay.getMillis(1));
+  }
+
+  @Test
+  void writesInBatchesTest() throws IOException
+  {
+    Path path = directory.resolve("batched.journal");
+    Field field = new Field(9, 9, 10);
+    try (MoveJournal journal = MoveJournal.create(field, path))
+    {
+      journal.play(Move.flag(0, 0));
+      assertEquals(MoveJournal.HEADER_BYTES, Files.size(path));
+      journal.flush();
+      assertEquals(MoveJournal.HEADER_BYTES + MoveJournal.RECORD_BYTES, Files.size(path));
+    }
+  }
+
+  @Test
+  void resetFieldTest() throws IOException
+  {
+    Field field = new Field(16, 16, 10, new SplittableRandom(7));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (MoveJournal journal = new MoveJournal(field, Channels.newChannel(out), CLOCK))
+    {
+      journal.play(Move.flag(0, 0));
+      field.reset(field.getSeed() + 1);
+      assertThrows(IllegalStateException.class, () -> journal.play(Move.uncover(5, 5)));
+    }
+    JournalReplay replay = JournalReplay.read(channel(out.toByteArray()), 32);
+    assertEquals(1, replay.getMoveCount());
+  }
+
+  @Test
+  void resetToSameSeedTest() throws IOException
+  {
+    Field field = new Field(16, 16, 10, new SplittableRandom(7));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (MoveJournal journal = new MoveJournal(field, Channels.newChannel(out), CLOCK))
+    {
+      journal.play(Move.flag(0, 0));
+      field.reset(field.getSeed());
+      assertThrows(IllegalStateException.class, () -> journal.play(Move.uncover(5, 5)));
+    }
+    JournalReplay replay = JournalReplay.read(channel(out.toByteArray()), 32);
+    assertEquals(1, replay.getMoveCount());
+  }
+
+  @Test
+  void tornRecordTest() throws IOException
+  {
+    Field field = new Field(9, 9, 10);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (MoveJournal journal = new MoveJournal(field, Channels.newChannel(out), CLOCK))
+    {
+      journal.play(Move.flag(0, 0), Move.flag(1, 1));
+    }
+    byte[] bytes = out.toByteArray();
+    byte[] torn = Arrays.copyOf(bytes, bytes.length - 3);
+    assertEquals(1, JournalReplay.read(channel(torn), 16).getMoveCount());
+  }
+
+  @Test
+  void notAJournalTest()
+  {
+    byte[] bytes = new byte[MoveJournal.HEADER_BYTES];
+    assertThrows(StreamCorruptedException.class, () -> JournalReplay.read(channel(bytes), 16));
+  }
+
+  @Test
+  void invalidHeaderTest() throws IOException
+  {
+    // Width, height and mine count follow the magic and the version.
+    assertInvalidHeader("width", header -> header.putInt(6, -9));
+    assertInvalidHeader("height", header -> header.putInt(10, 0));
+    assertInvalidHeader("size", header -> header.putInt(6, 1 << 20).putInt(10, 1 << 20));
+    assertInvalidHeader("mine count", header -> header.putInt(14, 82));
+  }
+
+  private static void assertInvalidHeader(String field, Consumer<ByteBuffer> corruption)
+      throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new MoveJournal(new Field(9, 9, 10), Channels.newChannel(out), CLOCK).close();
+    byte[] bytes = out.toByteArray();
+    corruption.accept(ByteBuffer.wrap(bytes));
+    StreamCorruptedException e = assertThrows(StreamCorruptedException.class,
+        () -> JournalReplay.read(channel(bytes), 16));
+    assertTrue(e.getMessage().contains(field), e.getMessage());
+  }
+
+  private static List<Move> playRandomly(MoveJournal journal, SplittableRandom random, int count)
+  {
+    Field field = journal.getField();
+    List<Move> moves = new ArrayList<>();
+    for (int i = 0; i < count; i++)
+    {
+      int x = random.nextInt(field.getWidth());
+      int y = random.nextInt(field.getHeight());
+      int kind = random.nextInt(10);
+      Move move = kind < 5 ? Move.flag(x, y) : kind < 9 ? Move.uncover(x, y) : Move.chord(x, y);
+      moves.add(move);
+      journal.play(move);
+    }
+    return moves;
+  }
+}
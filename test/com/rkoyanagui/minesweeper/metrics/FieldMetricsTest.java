@@ -0,0 +1,193 @@
+package com.rkoyanagui.minesweeper.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.Square;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.management.JMX;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+class FieldMetricsTest
+{
+  @Test
+  void histogramTest()
+  {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.percentile(0.5));
+    for (int value = 1; value <= 100; value++)
+    {
+      histogram.record(value);
+    }
+    histogram.record(0, 3);
+    assertEquals(103, histogram.count());
+    assertEquals(5050, histogram.sum());
+    assertEquals(63, histogram.percentile(0.5));
+    assertEquals(127, histogram.percentile(0.99));
+    assertEquals(0, histogram.percentile(0.01));
+    histogram.clear();
+    assertEquals(0, histogram.count());
+  }
+
+  @Test
+  void recordsGamesTest()
+  {
+    FieldMetrics metrics = new FieldMetrics();
+    Field field = new Field(5, 5, 1, new SplittableRandom(1));
+    field.setMetrics(metrics);
+    Square mine = field.getSquares().stream().filter(s -> s.isMined()).findFirst().get();
+    Square zero = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined() && s.surroundingMineCount() == 0)
+        .findFirst()
+        .get();
+    mine.flipFlag();
+    mine.flipFlag();
+    zero.uncover();
+    List<Square> rest = field.getSquares().stream().filter(s -> !s.isCleared()).toList();
+    rest.forEach(s -> s.uncover());
+    assertEquals(2, metrics.getFlags());
+    assertEquals(1 + rest.size(), metrics.getUncovers());
+    assertEquals(24, metrics.cascadeCells().sum());
+    assertEquals(1, metrics.getWins());
+    assertEquals(0, metrics.getLosses());
+
+    field.reset(field.getSeed());
+    field.play(Move.uncover(mine.getX(), mine.getY()));
+    assertEquals(2 + rest.size(), metrics.getUncovers());
+    assertEquals(25, metrics.cascadeCells().sum());
+    assertEquals(1, metrics.getLosses());
+    assertEquals(1, metrics.getResets());
+  }
+
+  @Test
+  void droppedFieldCountsTest()
+  {
+    FieldMetrics metrics = new FieldMetrics();
+    Field field = new Field(5, 5, 1, new SplittableRandom(1));
+    field.setMetrics(metrics);
+    Square numbered = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined() && s.surroundingMineCount() > 0)
+        .findFirst()
+        .get();
+    Square other = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined() && s != numbered)
+        .findFirst()
+        .get();
+    numbered.uncover();
+    numbered.uncover();
+    other.flipFlag();
+    other.uncover();
+    // The game goes on, so only dropping the field adds these.
+    field.flushMetrics();
+    assertEquals(1, metrics.getUncovers());
+    assertEquals(1, metrics.getFlags());
+    assertTrue(field.getResult().isEmpty());
+  }
+
+  @Test
+  void recordsChordsTest()
+  {
+    FieldMetrics metrics = new FieldMetrics();
+    Field field = new Field(5, 5, 1, new SplittableRandom(1));
+    field.setMetrics(metrics);
+    Square mine = field.getSquares().stream().filter(s -> s.isMined()).findFirst().get();
+    Square number = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined() && s.surroundingMineCount() == 1)
+        .findFirst()
+        .get();
+    field.play(Move.uncover(number.getX(), number.getY()), Move.flag(mine.getX(), mine.getY()));
+    int revealed = field.play(Move.chord(number.getX(), number.getY())).revealed();
+    field.flushMetrics();
+    assertTrue(revealed > 0);
+    assertEquals(2, metrics.getUncovers());
+    assertEquals(1 + revealed, metrics.cascadeCells().sum());
+  }
+
+  @Test
+  void noneRecordsNothingTest()
+  {
+    Field field = new Field(5, 5, 1, new SplittableRandom(1));
+    field.setMetrics(FieldMetrics.NONE);
+    field.registerFieldObserver(d -> { });
+    for (int flag = 0; flag < FieldMetrics.SAMPLE_RATE * 2; flag++)
+    {
+      field.getSquare(0, 0).flipFlag();
+    }
+    field.getSquares().forEach(s -> s.uncover());
+    field.reset();
+    field.flushMetrics();
+    assertEquals(0, FieldMetrics.NONE.getFlags());
+    assertEquals(0, FieldMetrics.NONE.getUncovers());
+    assertEquals(0, FieldMetrics.NONE.getLosses());
+    assertEquals(0, FieldMetrics.NONE.getResets());
+    assertEquals(0, FieldMetrics.NONE.flagNanos().count());
+    assertEquals(0, FieldMetrics.NONE.dispatchNanos().count());
+    assertEquals(0, FieldMetrics.NONE.observerFanOut().count());
+  }
+
+  @Test
+  void timesOneFlagInSampleRateTest()
+  {
+    FieldMetrics metrics = new FieldMetrics();
+    Field field = new Field(10, 10, 10, new SplittableRandom(3));
+    field.setMetrics(metrics);
+    for (int flag = 0; flag < FieldMetrics.SAMPLE_RATE * 2; flag++)
+    {
+      field.getSquare(0, 0).flipFlag();
+    }
+    assertEquals(FieldMetrics.SAMPLE_RATE * 2, metrics.getFlags());
+    assertEquals(2, metrics.flagNanos().count());
+  }
+
+  @Test
+  void timesOneUncoverInSampleRateTest()
+  {
+    FieldMetrics metrics = new FieldMetrics();
+    Field field = new Field(100, 100, 5000, new SplittableRandom(2));
+    field.setMetrics(metrics);
+    field.registerFieldObserver(d -> { });
+    field.registerFieldObserver(d -> { });
+    List<Square> numbered = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined() && s.surroundingMineCount() > 0)
+        .limit(FieldMetrics.SAMPLE_RATE * 3)
+        .toList();
+    assertEquals(FieldMetrics.SAMPLE_RATE * 3, numbered.size());
+    for (Square square : numbered)
+    {
+      square.uncover();
+      square.setExposed(false);
+    }
+    assertEquals(numbered.size(), metrics.getUncovers());
+    assertEquals(numbered.size(), metrics.cascadeCells().sum());
+    assertEquals(3, metrics.uncoverNanos().count());
+    assertTrue(metrics.dispatchNanos().count() >= 3);
+    // Each uncover and each cover again is a dispatch, and every one of them gives its fan-out.
+    assertEquals(numbered.size() * 2L, metrics.observerFanOut().count());
+    assertEquals(2.0, metrics.getObserverFanOutMean());
+  }
+
+  @Test
+  void globalMetricsOverJmxTest() throws Exception
+  {
+    FieldMetrics.registerGlobal();
+    FieldMetrics.registerGlobal();
+    FieldMetricsMXBean proxy = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+        new ObjectName(FieldMetrics.OBJECT_NAME), FieldMetricsMXBean.class);
+    long before = proxy.getFlags();
+    Field field = new Field(9, 9, 10);
+    field.getSquare(0, 0).flipFlag();
+    field.reset();
+    assertTrue(proxy.getFlags() > before);
+    assertTrue(proxy.getResets() > 0);
+  }
+}
@@ -0,0 +1,154 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class BoardVersionTest
+{
+  @Test
+  void matchesFieldTest()
+  {
+    SplittableRandom random = new SplittableRandom(1);
+    for (int game = 0; game < 20; game++)
+    {
+      Field field = new Field(70, 40, 300, random.split());
+      BoardVersion version = BoardVersion.of(field);
+      while (field.getResult().isEmpty())
+      {
+        Move move = randomMove(random, field);
+        field.play(move);
+        version = version.play(move);
+        assertSameState(field, version);
+      }
+      assertEquals(field.getResult(), version.getResult());
+    }
+  }
+
+  @Test
+  void olderVersionsStayTheSameTest()
+  {
+    SplittableRandom random = new SplittableRandom(2);
+    Field field = new Field(70, 40, 300, random.split());
+    List<BoardVersion> versions = new ArrayList<>();
+    List<String> states = new ArrayList<>();
+    BoardVersion version = BoardVersion.of(field);
+    for (int move = 0; move < 100 && version.getResult().isEmpty(); move++)
+    {
+      versions.add(version);
+      states.add(render(version));
+      version = version.play(randomMove(random, field));
+    }
+    for (int i = 0; i < versions.size(); i++)
+    {
+      assertEquals(states.get(i), render(versions.get(i)));
+    }
+  }
+
+  @Test
+  void flagCopiesOneTileTest()
+  {
+    BoardVersion before = BoardVersion.of(new Field(1000, 1000, 100_000));
+    BoardVersion after = before.play(Move.flag(500, 500));
+    assertEquals(1, after.tilesNotSharedWith(before));
+    assertTrue(after.isFlagged(500, 500));
+    assertFalse(before.isFlagged(500, 500));
+  }
+
+  @Test
+  void olderVersionsCanBeCollectedTest() throws InterruptedException
+  {
+    BoardVersion start = BoardVersion.of(new Field(100, 100, 1000));
+    BoardVersion latest = start.play(Move.flag(0, 0)).play(Move.flag(99, 99));
+    WeakReference<BoardVersion> first = new WeakReference<>(start);
+    start = null;
+    for (int attempt = 0; attempt < 50 && first.get() != null; attempt++)
+    {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(first.get());
+    assertTrue(latest.isFlagged(0, 0) && latest.isFlagged(99, 99));
+  }
+
+  @Test
+  void forkTest()
+  {
+    BoardVersion start = BoardVersion.of(new Field(10, 10, 10));
+    BoardVersion left = start.play(Move.flag(0, 0));
+    BoardVersion right = start.play(Move.flag(9, 9));
+    assertTrue(left.isFlagged(0, 0) && !left.isFlagged(9, 9));
+    assertTrue(right.isFlagged(9, 9) && !right.isFlagged(0, 0));
+  }
+
+  @Test
+  void noChangeKeepsVersionTest()
+  {
+    BoardVersion start = BoardVersion.of(new Field(10, 10, 10));
+    assertSame(start, start.play(Move.uncover(-1, 0)));
+    assertSame(start, start.play(Move.chord(0, 0)));
+  }
+
+  @Test
+  void undoRedoTest()
+  {
+    VersionHistory history = new VersionHistory(BoardVersion.of(new Field(10, 10, 10)));
+    BoardVersion first = history.getCurrent();
+    BoardVersion flagged = history.play(Move.flag(1, 1));
+    history.play(Move.flag(2, 2));
+    assertSame(flagged, history.undo());
+    assertSame(first, history.undo());
+    assertFalse(history.canUndo());
+    assertSame(flagged, history.redo());
+
+    // Playing after an undo drops what could have been redone.
+    history.play(Move.flag(3, 3));
+    assertFalse(history.canRedo());
+    assertTrue(history.getCurrent().isFlagged(1, 1));
+    assertFalse(history.getCurrent().isFlagged(2, 2));
+  }
+
+  private static Move randomMove(SplittableRandom random, Field field)
+  {
+    int x = random.nextInt(field.getWidth());
+    int y = random.nextInt(field.getHeight());
+    int kind = random.nextInt(10);
+    return kind < 6 ? Move.uncover(x, y) : kind < 9 ? Move.flag(x, y) : Move.chord(x, y);
+  }
+
+  private static String render(BoardVersion version)
+  {
+    StringBuilder text = new StringBuilder();
+    for (int y = 0; y < version.getHeight(); y++)
+    {
+      for (int x = 0; x < version.getWidth(); x++)
+      {
+        text.append(version.isExposed(x, y) ? 'E' : version.isFlagged(x, y) ? 'F' : '.');
+      }
+    }
+    return text.toString();
+  }
+
+  private static void assertSameState(Field field, BoardVersion version)
+  {
+    for (Square square : field.getSquares())
+    {
+      int x = square.getX();
+      int y = square.getY();
+      assertEquals(square.isMined(), version.isMined(x, y));
+      assertEquals(square.isFlagged(), version.isFlagged(x, y));
+      assertEquals(square.isExposed(), version.isExposed(x, y));
+      assertEquals(square.isExploded(), version.isExploded(x, y));
+      assertEquals(square.surroundingMineCount(), version.surroundingMineCount(x, y));
+    }
+    assertEquals(field.getResult(), version.getResult());
+  }
+}
@@ -0,0 +1,271 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class ChunkedFieldTest
+{
+  // Not a multiple of the chunk size, so the ragged edge chunks are covered too.
+  private static final int WIDTH = 150;
+  private static final int HEIGHT = 100;
+  private static final double DENSITY = 0.12;
+
+  @Test
+  void matchesDenseFieldTest()
+  {
+    SplittableRandom random = new SplittableRandom(11);
+    for (int game = 0; game < 20; game++)
+    {
+      // Two live chunks force most moves to unpack chunks evicted by the last one.
+      ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, DENSITY, random.nextLong(), 2);
+      Field dense = copy(chunked);
+      List<long[]> chunkedDeltas = new ArrayList<>();
+      List<long[]> denseDeltas = new ArrayList<>();
+      chunked.registerPlaneObserver(d -> chunkedDeltas.add(coordinates(d)));
+      dense.registerFieldObserver(d -> denseDeltas.add(coordinates(d)));
+
+      while (chunked.getResult().isEmpty())
+      {
+        Move move = randomMove(random);
+        assertEquals(dense.play(move), chunked.play(move));
+        if (chunked.getResult().filter(r -> r.isDefeated()).isPresent())
+        {
+          // A lost dense field shows every mine, a chunked one only those in built chunks.
+          break;
+        }
+        assertEquals(denseDeltas.size(), chunkedDeltas.size());
+        for (int i = 0; i < denseDeltas.size(); i++)
+        {
+          assertArrayEquals(denseDeltas.get(i), chunkedDeltas.get(i));
+        }
+        assertSameCells(dense, chunked);
+      }
+      assertEquals(dense.getResult(), chunked.getResult());
+    }
+  }
+
+  @Test
+  void adjacencyAcrossChunksTest()
+  {
+    ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, 0.3, 5);
+    Field dense = copy(chunked);
+    for (int y = 0; y < HEIGHT; y++)
+    {
+      for (int x = 0; x < WIDTH; x++)
+      {
+        assertEquals(dense.getSquare(x, y).surroundingMineCount(),
+            chunked.surroundingMineCount(x, y));
+      }
+    }
+  }
+
+  @Test
+  void mineCountTest()
+  {
+    ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, DENSITY, 3);
+    assertEquals(chunked.getMineCount(), mines(chunked).size());
+  }
+
+  @Test
+  void layoutIgnoresVisitOrderTest()
+  {
+    ChunkedField forwards = new ChunkedField(WIDTH, HEIGHT, DENSITY, 9, 1);
+    ChunkedField backwards = new ChunkedField(WIDTH, HEIGHT, DENSITY, 9, 1);
+    for (int y = HEIGHT - 1; y >= 0; y--)
+    {
+      for (int x = WIDTH - 1; x >= 0; x--)
+      {
+        backwards.isMined(x, y);
+      }
+    }
+    assertEquals(cellSet(mines(forwards)), cellSet(mines(backwards)));
+  }
+
+  @Test
+  void unboundedFieldTest()
+  {
+    ChunkedField chunked = new ChunkedField(Integer.MAX_VALUE, Integer.MAX_VALUE, 0.2, 1, 16);
+    double cells = (double) Integer.MAX_VALUE * Integer.MAX_VALUE;
+    assertEquals(0.2, chunked.getMineCount() / cells, 1e-3);
+    int far = 1_000_000_000;
+    for (int step = 0; step < 100; step++)
+    {
+      chunked.play(Move.flag(far + step * Chunk.SIZE, far));
+    }
+    assertTrue(chunked.getLiveChunkCount() <= 16);
+    assertEquals(100 - chunked.getLiveChunkCount(), chunked.getPackedChunkCount());
+    for (int step = 0; step < 100; step++)
+    {
+      assertTrue(chunked.isFlagged(far + step * Chunk.SIZE, far));
+    }
+  }
+
+  @Test
+  void cascadeStaysWithinLiveChunksTest()
+  {
+    int side = 20 * Chunk.SIZE;
+    ChunkedField chunked = new ChunkedField(side, side, 0, 12, 4);
+    List<PlaneDelta> deltas = new ArrayList<>();
+    int[] mostLive = new int[1];
+    chunked.registerPlaneObserver(d ->
+    {
+      deltas.add(d);
+      mostLive[0] = Math.max(mostLive[0], chunked.getLiveChunkCount());
+    });
+    MoveOutcome outcome = chunked.play(Move.uncover(side / 2, side / 2));
+    assertTrue(outcome.isVictorious());
+    assertEquals(side * side, outcome.revealed());
+    assertTrue(mostLive[0] <= 4);
+    assertTrue(chunked.getLiveChunkCount() <= 4);
+    assertEquals(side * side / ChunkedField.MAX_DELTA_CELLS + 1, deltas.size());
+    assertEquals(side * side, deltas.stream().mapToLong(d -> d.size()).sum());
+    assertTrue(deltas.stream().limit(deltas.size() - 1).allMatch(d -> !d.isGameOver()));
+    assertTrue(deltas.get(deltas.size() - 1).result().isVictorious());
+  }
+
+  @Test
+  void lossShowsMinesInPackedChunksTest()
+  {
+    ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, 0.3, 13, 1);
+    List<int[]> mines = mines(chunked);
+    int[] packedMine = mines.get(0);
+    chunked.play(Move.flag(WIDTH - 1, HEIGHT - 1));
+    chunked.play(Move.flag(packedMine[0] + 1 == WIDTH ? 0 : packedMine[0] + 1, packedMine[1]));
+    int[] lastMine = mines.get(mines.size() - 1);
+    chunked.play(Move.uncover(lastMine[0], lastMine[1]));
+    assertTrue(chunked.getResult().orElseThrow().isDefeated());
+    int packedChunks = chunked.getPackedChunkCount();
+    assertTrue(packedChunks > 0);
+
+    assertTrue(chunked.isExposed(packedMine[0], packedMine[1]));
+    List<PlaneDelta> deltas = new ArrayList<>();
+    chunked.registerPlaneObserver(d -> deltas.add(d));
+    chunked.reset(14);
+    assertEquals(1, deltas.size());
+  }
+
+  @Test
+  void unplayedChunksAreDroppedTest()
+  {
+    ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, DENSITY, 4, 1);
+    mines(chunked);
+    assertEquals(1, chunked.getLiveChunkCount());
+    assertEquals(0, chunked.getPackedChunkCount());
+  }
+
+  @Test
+  void resetReportsPlayedCellsTest()
+  {
+    ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, DENSITY, 6, 1);
+    chunked.play(Move.flag(0, 0), Move.flag(WIDTH - 1, HEIGHT - 1));
+    List<PlaneDelta> deltas = new ArrayList<>();
+    chunked.registerPlaneObserver(d -> deltas.add(d));
+    chunked.reset(7);
+    assertEquals(1, deltas.size());
+    assertEquals(2, deltas.get(0).size());
+    assertFalse(chunked.isFlagged(0, 0));
+    assertEquals(7, chunked.getSeed());
+    assertEquals(0, chunked.getPackedChunkCount());
+  }
+
+  @Test
+  void outOfBoundsTest()
+  {
+    ChunkedField chunked = new ChunkedField(WIDTH, HEIGHT, DENSITY, 8);
+    assertThrows(IndexOutOfBoundsException.class, () -> chunked.isExposed(WIDTH, 0));
+    assertEquals(1, chunked.play(Move.uncover(-1, 0)).skipped());
+    assertThrows(IllegalArgumentException.class, () -> new ChunkedField(1, 1, 1.5, 0));
+  }
+
+  // A dense field with the same mines, so the two can be played side by side.
+  private static Field copy(ChunkedField chunked)
+  {
+    Field dense = new Field(chunked.getWidth(), chunked.getHeight(), 0);
+    for (int[] mine : mines(chunked))
+    {
+      dense.getSquare(mine[0], mine[1]).mine();
+    }
+    return dense;
+  }
+
+  private static List<int[]> mines(ChunkedField chunked)
+  {
+    List<int[]> mines = new ArrayList<>();
+    for (int y = 0; y < chunked.getHeight(); y++)
+    {
+      for (int x = 0; x < chunked.getWidth(); x++)
+      {
+        if (chunked.isMined(x, y))
+        {
+          mines.add(new int[] { x, y });
+        }
+      }
+    }
+    return mines;
+  }
+
+  private static Set<List<Integer>> cellSet(List<int[]> cells)
+  {
+    Set<List<Integer>> set = new HashSet<>();
+    cells.forEach(c -> set.add(List.of(c[0], c[1])));
+    return set;
+  }
+
+  private static Move randomMove(SplittableRandom random)
+  {
+    int x = random.nextInt(WIDTH);
+    int y = random.nextInt(HEIGHT);
+    int kind = random.nextInt(10);
+    return kind < 6 ? Move.uncover(x, y) : kind < 9 ? Move.flag(x, y) : Move.chord(x, y);
+  }
+
+  // A chunked field lists a cascade chunk by chunk, so deltas are compared as sets of cells.
+  private static long[] coordinates(FieldDelta delta)
+  {
+    long[] cells = new long[delta.size()];
+    for (int i = 0; i < delta.size(); i++)
+    {
+      cells[i] = (long) (delta.cells()[i] / WIDTH) << 32 | delta.cells()[i] % WIDTH;
+    }
+    Arrays.sort(cells);
+    return cells;
+  }
+
+  private static long[] coordinates(PlaneDelta delta)
+  {
+    long[] cells = delta.cells().clone();
+    Arrays.sort(cells);
+    return cells;
+  }
+
+  // Walks chunk by chunk, so that only a few chunks are rebuilt however few stay live.
+  private static void assertSameCells(Field dense, ChunkedField chunked)
+  {
+    for (int cy = 0; cy < HEIGHT; cy += Chunk.SIZE)
+    {
+      for (int cx = 0; cx < WIDTH; cx += Chunk.SIZE)
+      {
+        for (int y = cy; y < Math.min(HEIGHT, cy + Chunk.SIZE); y++)
+        {
+          for (int x = cx; x < Math.min(WIDTH, cx + Chunk.SIZE); x++)
+          {
+            Square square = dense.getSquare(x, y);
+            assertEquals(square.isExposed(), chunked.isExposed(x, y));
+            assertEquals(square.isFlagged(), chunked.isFlagged(x, y));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,266 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentFieldTest
+{
+  private static final int THREADS = 8;
+
+  @Test
+  void matchesFieldTest()
+  {
+    SplittableRandom random = new SplittableRandom(1);
+    for (int game = 0; game < 20; game++)
+    {
+      long seed = random.nextLong();
+      Field field = new Field(30, 16, 99, new SplittableRandom(seed));
+      ConcurrentField concurrent = new ConcurrentField(30, 16, 99, new SplittableRandom(seed));
+      while (field.getResult().isEmpty())
+      {
+        int x = random.nextInt(30);
+        int y = random.nextInt(16);
+        int kind = random.nextInt(10);
+        Move move = kind < 6 ? Move.uncover(x, y) : kind < 9 ? Move.flag(x, y) : Move.chord(x, y);
+        assertEquals(field.play(move), concurrent.play(move));
+        for (Square square : field.getSquares())
+        {
+          int sx = square.getX();
+          int sy = square.getY();
+          assertEquals(square.isMined(), concurrent.isMined(sx, sy));
+          assertEquals(square.isFlagged(), concurrent.isFlagged(sx, sy));
+          assertEquals(square.isExposed(), concurrent.isExposed(sx, sy));
+          assertEquals(square.isExploded(), concurrent.isExploded(sx, sy));
+        }
+      }
+    }
+  }
+
+  @Test
+  void winThenMineInOneBatchTest()
+  {
+    // A 3x1 field with its one mine in the middle.
+    long seed = 0;
+    while (!new ConcurrentField(3, 1, 1, new SplittableRandom(seed)).isMined(1, 0))
+    {
+      seed++;
+    }
+    Field field = new Field(3, 1, 1, new SplittableRandom(seed));
+    ConcurrentField concurrent = new ConcurrentField(3, 1, 1, new SplittableRandom(seed));
+    List<Move> moves = List.of(Move.uncover(0, 0), Move.uncover(2, 0), Move.uncover(1, 0));
+    MoveOutcome outcome = concurrent.play(moves);
+    assertEquals(field.play(moves), outcome);
+    assertEquals(2, outcome.applied());
+    assertTrue(outcome.isVictorious());
+    assertFalse(concurrent.isExposed(1, 0));
+  }
+
+  @Test
+  void overlappingCascadesRevealEachCellOnceTest() throws Exception
+  {
+    for (int round = 0; round < 10; round++)
+    {
+      ConcurrentField field = new ConcurrentField(100, 100, 300, new SplittableRandom(round));
+      Queue<FieldDelta> deltas = new ConcurrentLinkedQueue<>();
+      field.registerFieldObserver(d -> deltas.add(d));
+      List<Move> safe = new ArrayList<>();
+      for (int y = 0; y < 100; y++)
+      {
+        for (int x = 0; x < 100; x++)
+        {
+          if (!field.isMined(x, y))
+          {
+            safe.add(Move.uncover(x, y));
+          }
+        }
+      }
+      List<Integer> revealed = inParallel(t ->
+      {
+        List<Move> moves = new ArrayList<>(safe);
+        Collections.shuffle(moves, new Random(t));
+        int cells = 0;
+        for (Move move : moves)
+        {
+          cells += field.play(move).revealed();
+        }
+        return cells;
+      });
+
+      int total = revealed.stream().mapToInt(r -> r).sum();
+      assertEquals(safe.size(), total);
+      boolean[] seen = new boolean[100 * 100];
+      int results = 0;
+      for (FieldDelta delta : deltas)
+      {
+        for (int cell : delta.cells())
+        {
+          assertTrue(!seen[cell], "cell " + cell + " reported twice");
+          seen[cell] = true;
+        }
+        results += delta.isGameOver() ? 1 : 0;
+      }
+      assertEquals(1, results);
+      assertTrue(field.getResult().get().isVictorious());
+    }
+  }
+
+  @Test
+  void oneResultWhenMinesRaceTest() throws Exception
+  {
+    for (int round = 0; round < 10; round++)
+    {
+      ConcurrentField field = new ConcurrentField(50, 50, 500, new SplittableRandom(round));
+      Queue<FieldDelta> deltas = new ConcurrentLinkedQueue<>();
+      field.registerFieldObserver(d -> deltas.add(d));
+      List<Move> mines = new ArrayList<>();
+      for (int y = 0; y < 50; y++)
+      {
+        for (int x = 0; x < 50; x++)
+        {
+          if (field.isMined(x, y))
+          {
+            mines.add(Move.uncover(x, y));
+          }
+        }
+      }
+      List<Integer> losses = inParallel(t ->
+      {
+        Move move = mines.get(t);
+        return field.play(move).isDefeated() && field.isExploded(move.x(), move.y()) ? 1 : 0;
+      });
+
+      assertEquals(1, losses.stream().mapToInt(l -> l).sum());
+      assertEquals(1, deltas.stream().filter(d -> d.isGameOver()).count());
+      for (Move mine : mines)
+      {
+        assertTrue(field.isExposed(mine.x(), mine.y()));
+      }
+    }
+  }
+
+  @Test
+  void mineAfterLastSafeCellIsNoLossTest() throws Exception
+  {
+    // One mine, so an uncover anywhere away from it clears the whole board in one cascade.
+    int side = 400;
+    ConcurrentField twin = new ConcurrentField(side, side, 1, new SplittableRandom(7));
+    Move mine = null;
+    for (int y = 0; y < side && mine == null; y++)
+    {
+      for (int x = 0; x < side && mine == null; x++)
+      {
+        mine = twin.isMined(x, y) ? Move.uncover(x, y) : null;
+      }
+    }
+    Move start = Move.uncover(
+        mine.x() < side / 2 ? side - 1 : 0, mine.y() < side / 2 ? side - 1 : 0);
+    // The cascade is the same on one thread every time, so the twin shows which cell it exposes
+    // last; the mine is hit once that cell is exposed, while the cascade is still emptying its
+    // stack and has not yet taken its cells off the count.
+    List<FieldDelta> cascade = new ArrayList<>();
+    twin.registerFieldObserver(d -> cascade.add(d));
+    twin.play(start);
+    int[] exposed = cascade.get(0).cells();
+    int last = exposed[exposed.length - 1];
+    Move hit = mine;
+    for (int round = 0; round < 20; round++)
+    {
+      ConcurrentField field = new ConcurrentField(side, side, 1, new SplittableRandom(7));
+      Queue<FieldDelta> deltas = new ConcurrentLinkedQueue<>();
+      field.registerFieldObserver(d -> deltas.add(d));
+      inParallel(t ->
+      {
+        if (t == 0)
+        {
+          field.play(start);
+        }
+        else if (t == 1)
+        {
+          while (!field.isExposed(last % side, last / side))
+          {
+            Thread.onSpinWait();
+          }
+          field.play(hit);
+        }
+        return 0;
+      });
+
+      assertTrue(field.getResult().get().isVictorious());
+      assertFalse(field.isExploded(hit.x(), hit.y()));
+      assertEquals(1, deltas.stream().filter(d -> d.isGameOver()).count());
+    }
+  }
+
+  @Test
+  void flagsAndUncoversDoNotMixTest() throws Exception
+  {
+    ConcurrentField field = new ConcurrentField(60, 60, 0, new SplittableRandom(5));
+    inParallel(t ->
+    {
+      for (int y = 0; y < 60; y++)
+      {
+        for (int x = 0; x < 60; x++)
+        {
+          field.play(t % 2 == 0 ? Move.flag(x, y) : Move.uncover(59 - x, 59 - y));
+        }
+      }
+      return 0;
+    });
+    for (int y = 0; y < 60; y++)
+    {
+      for (int x = 0; x < 60; x++)
+      {
+        assertTrue(!(field.isExposed(x, y) && field.isFlagged(x, y)));
+      }
+    }
+  }
+
+  private interface Player
+  {
+    int play(int thread) throws Exception;
+  }
+
+  // Runs the player on THREADS threads that start together, and returns what each returned.
+  private static List<Integer> inParallel(Player player) throws Exception
+  {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    CyclicBarrier start = new CyclicBarrier(THREADS);
+    try
+    {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++)
+      {
+        int thread = t;
+        futures.add(pool.submit(() ->
+        {
+          start.await();
+          return player.play(thread);
+        }));
+      }
+      List<Integer> results = new ArrayList<>();
+      for (Future<Integer> future : futures)
+      {
+        results.add(future.get());
+      }
+      return results;
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+class FieldActionEventTest
+{
+  @Test
+  void recordsActionsTest() throws Exception
+  {
+    Field field = new Field(3, 3, 0, new SplittableRandom(1));
+    field.getSquare(0, 0).mine();
+    field.registerFieldObserver(d -> { });
+    field.registerObserver(0, (s, e) -> { });
+
+    List<RecordedEvent> events = record(() ->
+    {
+      field.flipFlag(0, 0);
+      field.play(Move.uncover(2, 2));
+      field.reset(7);
+    });
+
+    List<RecordedEvent> actions = named(events, "FieldAction");
+    assertEquals(2, actions.size());
+    RecordedEvent flag = actions.get(0);
+    assertEquals("FLAG", flag.getString("action"));
+    assertEquals(0, flag.getInt("x"));
+    assertEquals(0, flag.getInt("revealed"));
+    RecordedEvent uncover = actions.get(1);
+    assertEquals("UNCOVER", uncover.getString("action"));
+    assertEquals(2, uncover.getInt("x"));
+    assertEquals(2, uncover.getInt("y"));
+    assertEquals(8, uncover.getInt("revealed"));
+    assertTrue(uncover.getInt("depth") >= 1);
+    assertTrue(uncover.getDuration("revealTime").toNanos() >= 0);
+
+    // The square observer only hears about the flag; the field observer hears about both.
+    List<RecordedEvent> dispatches = named(events, "ObserverDispatch");
+    assertEquals(3, dispatches.size());
+    assertEquals(3, dispatches.stream().mapToInt(e -> e.getInt("calls")).sum());
+
+    RecordedEvent reset = named(events, "FieldReset").get(0);
+    assertEquals(7, reset.getLong("seed"));
+    assertEquals(9, reset.getInt("cells"));
+    assertEquals(7, named(events, "MinePlacement").get(0).getLong("seed"));
+  }
+
+  @Test
+  void batchIsOneActionTest() throws Exception
+  {
+    Field field = new Field(30, 16, 99, new SplittableRandom(2));
+    List<Move> moves = field.getSquares()
+        .stream()
+        .filter(s -> s.isNotMined())
+        .limit(20)
+        .map(s -> Move.uncover(s.getX(), s.getY()))
+        .collect(Collectors.toList());
+
+    List<RecordedEvent> events = record(() -> field.play(moves));
+
+    List<RecordedEvent> actions = named(events, "FieldAction");
+    assertEquals(1, actions.size());
+    assertEquals("BATCH", actions.get(0).getString("action"));
+    assertTrue(actions.get(0).getInt("revealed") >= 20);
+  }
+
+  private static List<RecordedEvent> record(Runnable actions) throws Exception
+  {
+    Path file = Files.createTempFile("field", ".jfr");
+    try (Recording recording = new Recording())
+    {
+      for (String name : List.of("FieldAction", "ObserverDispatch", "FieldReset", "MinePlacement"))
+      {
+        recording.enable("com.rkoyanagui.minesweeper." + name);
+      }
+      recording.start();
+      actions.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    }
+    finally
+    {
+      Files.delete(file);
+    }
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name)
+  {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals("com.rkoyanagui.minesweeper." + name))
+        .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+        .collect(Collectors.toList());
+  }
+}
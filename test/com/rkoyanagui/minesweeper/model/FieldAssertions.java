@@ -0,0 +1,44 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+// Helpers for tests that check one field, or a field's bytes, against another.
+public final class FieldAssertions
+{
+  private FieldAssertions()
+  {
+  }
+
+  public static ReadableByteChannel channel(byte[] bytes)
+  {
+    return Channels.newChannel(new ByteArrayInputStream(bytes));
+  }
+
+  // Same size, mines, seed and result, and every square in the same state.
+  public static void assertSameField(Field expected, Field actual)
+  {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertEquals(expected.getMineCount(), actual.getMineCount());
+    assertEquals(expected.getSeed(), actual.getSeed());
+    assertEquals(expected.getResult(), actual.getResult());
+    assertEquals(expected.getExplodedIndex(), actual.getExplodedIndex());
+    assertEquals(expected.isMinefieldCleared(), actual.isMinefieldCleared());
+    for (int y = 0; y < expected.getHeight(); y++)
+    {
+      for (int x = 0; x < expected.getWidth(); x++)
+      {
+        String square = "(" + x + ", " + y + ")";
+        assertEquals(expected.isMined(x, y), actual.isMined(x, y), square);
+        assertEquals(expected.isFlagged(x, y), actual.isFlagged(x, y), square);
+        assertEquals(expected.isExposed(x, y), actual.isExposed(x, y), square);
+        assertEquals(expected.surroundingMineCount(x, y), actual.surroundingMineCount(x, y),
+            square);
+      }
+    }
+  }
+}
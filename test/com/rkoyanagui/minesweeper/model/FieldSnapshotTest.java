@@ -0,0 +1,136 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static com.rkoyanagui.minesweeper.model.FieldAssertions.assertSameField;
+import static com.rkoyanagui.minesweeper.model.FieldAssertions.channel;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class FieldSnapshotTest
+{
+  @Test
+  void roundTripTest() throws IOException
+  {
+    Field field = new Field(30, 16, 99, new SplittableRandom(1));
+    field.play(Move.flag(0, 0), Move.flag(5, 5), Move.uncover(10, 10));
+    assertSameField(field, FieldSnapshot.read(channel(write(field))));
+  }
+
+  @Test
+  void lostGameTest() throws IOException
+  {
+    Field field = new Field(9, 9, 10, new SplittableRandom(2));
+    Square mine = field.getSquares().stream().filter(s -> s.isMined()).findFirst().orElseThrow();
+    field.play(Move.uncover(mine.getX(), mine.getY()));
+    Field restored = FieldSnapshot.read(channel(write(field)));
+    assertSameField(field, restored);
+    assertTrue(restored.getSquare(mine.getX(), mine.getY()).isExploded());
+  }
+
+  @Test
+  void lostGameWithFlaggedMineTest() throws IOException
+  {
+    Field field = new Field(9, 9, 10, new SplittableRandom(2));
+    List<Square> mines = field.getSquares().stream().filter(s -> s.isMined()).toList();
+    Square flagged = mines.get(0);
+    Square hit = mines.get(1);
+    field.play(Move.flag(flagged.getX(), flagged.getY()), Move.uncover(hit.getX(), hit.getY()));
+    // Losing shows every mine, the flagged one included.
+    assertTrue(flagged.isFlagged() && flagged.isExposed());
+    assertSameField(field, FieldSnapshot.read(channel(write(field))));
+  }
+
+  @Test
+  void restoredFieldPlaysOnTest() throws IOException
+  {
+    Field field = new Field(16, 16, 40, new SplittableRandom(3));
+    Field restored = FieldSnapshot.read(channel(write(field)));
+    for (int y = 0; y < 16; y++)
+    {
+      for (int x = 0; x < 16; x++)
+      {
+        assertEquals(field.play(Move.uncover(x, y)), restored.play(Move.uncover(x, y)));
+      }
+    }
+    assertSameField(field, restored);
+  }
+
+  @Test
+  void compactSizeTest() throws IOException
+  {
+    Field field = new Field(1000, 1000, 200_000);
+    int words = (1000 * 1000 + 63) / 64;
+    assertEquals(FieldSnapshot.HEADER_BYTES + 3 * words * Long.BYTES, write(field).length);
+  }
+
+  @Test
+  void badMagicTest() throws IOException
+  {
+    byte[] bytes = write(new Field(5, 5, 5));
+    bytes[0] ^= 1;
+    assertThrows(StreamCorruptedException.class, () -> FieldSnapshot.read(channel(bytes)));
+  }
+
+  @Test
+  void unknownVersionTest() throws IOException
+  {
+    byte[] bytes = write(new Field(5, 5, 5));
+    bytes[5]++;
+    assertThrows(StreamCorruptedException.class, () -> FieldSnapshot.read(channel(bytes)));
+  }
+
+  @Test
+  void mineCountMismatchTest() throws IOException
+  {
+    byte[] bytes = write(new Field(5, 5, 5));
+    // The low byte of the header's mine count.
+    bytes[17]--;
+    assertThrows(StreamCorruptedException.class, () -> FieldSnapshot.read(channel(bytes)));
+  }
+
+  @Test
+  void explosionOnHiddenSquareTest() throws IOException
+  {
+    byte[] bytes = write(new Field(5, 5, 5));
+    // The header's exploded index, pointing at a square nobody has uncovered.
+    ByteBuffer.wrap(bytes).putInt(26, 0);
+    assertThrows(StreamCorruptedException.class, () -> FieldSnapshot.read(channel(bytes)));
+  }
+
+  @Test
+  void flaggedAndExposedSquareTest() throws IOException
+  {
+    Field field = new Field(5, 5, 0, new SplittableRandom(4));
+    field.play(Move.flag(0, 0));
+    byte[] bytes = write(field);
+    // Sets square 0's bit in the exposed plane, the last of the three, under its flag.
+    bytes[bytes.length - 1] |= 1;
+    assertThrows(StreamCorruptedException.class, () -> FieldSnapshot.read(channel(bytes)));
+  }
+
+  @Test
+  void truncatedTest() throws IOException
+  {
+    byte[] bytes = write(new Field(5, 5, 5));
+    byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+    assertThrows(EOFException.class, () -> FieldSnapshot.read(channel(truncated)));
+  }
+
+  private static byte[] write(Field field) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FieldSnapshot.write(field, Channels.newChannel(out));
+    return out.toByteArray();
+  }
+}
@@ -3,10 +3,18 @@ package com.rkoyanagui.minesweeper.model;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -63,6 +71,46 @@ class FieldTest
     assertEquals(8, s2.get().getNeighbours().size());
   }
 
+  @Test
+  void neighbourhoodMatchesPairwiseRuleTest()
+  {
+    for (Field f : List.of(field, new Field(1, 5, 2), new Field(4, 1, 1), new Field(1, 1, 0)))
+    {
+      assertNeighbourhoodsMatchPairwiseRule(f);
+    }
+  }
+
+  @Test
+  void adjacencyFollowsMovedMinesTest()
+  {
+    Square mined = field.getSquares().stream().filter(s -> s.isMined()).findFirst().get();
+    Square safe = field.getSquares().stream().filter(s -> s.isNotMined()).findFirst().get();
+    safe.flipFlag();
+    mined.reset();
+    safe.mine();
+    assertTrue(safe.isFlagged());
+    assertNeighbourhoodsMatchPairwiseRule(field);
+
+    field.reset();
+    assertNeighbourhoodsMatchPairwiseRule(field);
+  }
+
+  private static void assertNeighbourhoodsMatchPairwiseRule(Field f)
+  {
+    for (Square s1 : f.getSquares())
+    {
+      Set<Square> expected = f.getSquares()
+          .stream()
+          .filter(s2 -> Math.max(Math.abs(s1.getX() - s2.getX()),
+              Math.abs(s1.getY() - s2.getY())) == 1)
+          .collect(Collectors.toSet());
+      assertEquals(expected, new HashSet<>(s1.getNeighbours()));
+      assertEquals(expected.stream().filter(s -> s.isMined()).count(),
+          s1.surroundingMineCount());
+      assertEquals(expected.stream().noneMatch(s -> s.isMined()), s1.isSafeNeighbourhood());
+    }
+  }
+
   @Test
   void mineCountTest()
   {
@@ -127,6 +175,28 @@ class FieldTest
     assertTrue(field.isMinefieldCleared());
   }
 
+  @Test
+  void clearedCountersSurviveResetTest()
+  {
+    for (int round = 0; round < 2; round++)
+    {
+      assertFalse(field.isMinefieldCleared());
+      field.getSquares().stream().filter(s -> s.isNotMined()).forEach(s -> s.uncover());
+      assertTrue(field.isMinefieldCleared());
+      field.reset();
+    }
+
+    Square square = field.getSquares().stream().filter(s -> s.isNotMined()).findFirst().get();
+    field.getSquares().stream().filter(s -> s.isNotMined()).forEach(s -> s.setExposed(true));
+    assertTrue(field.isMinefieldCleared());
+    square.setExposed(false);
+    assertFalse(field.isMinefieldCleared());
+    square.mine();
+    assertTrue(field.isMinefieldCleared());
+    square.setExposed(true);
+    assertFalse(field.isMinefieldCleared());
+  }
+
   @Test
   void resetTest()
   {
@@ -151,4 +221,222 @@ class FieldTest
     // Checking that the mines have been randomly replaced on the field.
     assertNotEquals(checkSumBefore, checkSumAfter);
   }
+
+  @Test
+  void getSquareTest()
+  {
+    Square square = field.getSquare(4, 7);
+    assertEquals(4, square.getX());
+    assertEquals(7, square.getY());
+    assertThrows(IndexOutOfBoundsException.class, () -> field.getSquare(WIDTH, 0));
+  }
+
+  @Test
+  void outOfBoundsMoveTest()
+  {
+    assertEquals(0, field.uncover(-1, 0));
+    assertFalse(field.flipFlag(0, HEIGHT));
+    assertEquals(0, field.chord(WIDTH, HEIGHT));
+  }
+
+  @Test
+  void batchTest()
+  {
+    Field small = new Field(3, 3, 0);
+    small.getSquare(0, 0).mine();
+    MoveOutcome outcome = small.play(Move.flag(0, 0), Move.uncover(2, 2), Move.uncover(0, 0));
+    assertEquals(2, outcome.applied());
+    assertEquals(1, outcome.skipped());
+    assertEquals(8, outcome.revealed());
+    assertTrue(outcome.isVictorious());
+    assertFalse(small.getSquare(0, 0).isExposed());
+  }
+
+  @Test
+  void chordTest()
+  {
+    Field small = new Field(3, 3, 0);
+    small.getSquare(0, 0).mine();
+    small.uncover(1, 1);
+    assertEquals(0, small.chord(1, 1));
+    small.flipFlag(0, 0);
+    assertEquals(7, small.chord(1, 1));
+    assertTrue(small.getSquares().stream().allMatch(s -> s.isCleared()));
+    assertTrue(small.getResult().map(r -> r.isVictorious()).orElse(false));
+  }
+
+  @Test
+  void largeCascadeTest()
+  {
+    Field open = new Field(300, 300, 0);
+    open.getSquare(150, 150).mine();
+    assertEquals(300 * 300 - 1, open.uncover(0, 0));
+    assertTrue(open.getResult().map(r -> r.isVictorious()).orElse(false));
+  }
+
+  @Test
+  void seededFieldsMatchTest()
+  {
+    Field f1 = new Field(WIDTH, HEIGHT, MINE_COUNT, new SplittableRandom(42));
+    Field f2 = new Field(WIDTH, HEIGHT, MINE_COUNT, new SplittableRandom(42));
+    assertEquals(mines(f1), mines(f2));
+    f1.reset();
+    f2.reset();
+    assertEquals(f1.getSeed(), f2.getSeed());
+    assertEquals(mines(f1), mines(f2));
+  }
+
+  @Test
+  void resetToSeedTest()
+  {
+    long seed = field.getSeed();
+    List<Integer> before = mines(field);
+    field.reset();
+    field.reset(seed);
+    assertEquals(seed, field.getSeed());
+    assertEquals(before, mines(field));
+  }
+
+  @Test
+  void preparedResetMatchesSynchronousTest()
+  {
+    Field synchronous = new Field(WIDTH, HEIGHT, MINE_COUNT, new SplittableRandom(7));
+    Field prepared = new Field(WIDTH, HEIGHT, MINE_COUNT, new SplittableRandom(7));
+    prepared.setLayoutExecutor(ForkJoinPool.commonPool());
+    for (int game = 0; game < 5; game++)
+    {
+      synchronous.getSquares().stream().filter(s -> s.isMined()).findFirst().get().uncover();
+      prepared.getSquares().stream().filter(s -> s.isMined()).findFirst().get().uncover();
+      synchronous.reset();
+      prepared.reset();
+      assertEquals(synchronous.getSeed(), prepared.getSeed());
+      assertEquals(mines(synchronous), mines(prepared));
+      assertTrue(prepared.getResult().isEmpty());
+      assertTrue(prepared.getSquares().stream().allMatch(s -> s.isNotExposed()));
+    }
+    prepared.reset(synchronous.getSeed());
+    assertEquals(mines(synchronous), mines(prepared));
+  }
+
+  @Test
+  void resetReportsPlayedSquaresTest()
+  {
+    Field small = new Field(3, 3, 0);
+    small.getSquare(0, 0).mine();
+    small.flipFlag(2, 2);
+    small.uncover(1, 0);
+    small.uncover(1, 1);
+    List<FieldDelta> deltas = new ArrayList<>();
+    small.registerFieldObserver(delta -> deltas.add(delta));
+    small.reset();
+
+    assertEquals(1, deltas.size());
+    Set<Integer> cells = new HashSet<>();
+    for (int cell : deltas.get(0).cells())
+    {
+      cells.add(cell);
+    }
+    assertEquals(Set.of(1, 4, 8), cells);
+    assertTrue(small.getSquares().stream().allMatch(s -> s.isNotFlagged() && s.isNotExposed()));
+  }
+
+  @Test
+  void resetReachesEverySquareObserverTest()
+  {
+    Field seeded = new Field(WIDTH, HEIGHT, MINE_COUNT, new SplittableRandom(4));
+    seeded.flipFlag(0, 0);
+    // Registered mid-game, one on a played square and one on a square far from any play.
+    List<SquareEvent> played = new ArrayList<>();
+    List<SquareEvent> untouched = new ArrayList<>();
+    seeded.getSquare(0, 0).registerObserver((square, event) -> played.add(event));
+    seeded.getSquare(WIDTH - 1, HEIGHT - 1)
+        .registerObserver((square, event) -> untouched.add(event));
+    seeded.reset();
+    assertEquals(List.of(SquareEvent.RESET), played);
+    assertEquals(List.of(SquareEvent.RESET), untouched);
+  }
+
+  @Test
+  void denseFieldTest()
+  {
+    Field full = new Field(WIDTH, HEIGHT, WIDTH * HEIGHT);
+    assertTrue(full.getSquares().stream().allMatch(s -> s.isMined()));
+    Field almostFull = new Field(WIDTH, HEIGHT, WIDTH * HEIGHT - 1);
+    assertEquals(1, almostFull.getSquares().stream().filter(s -> s.isNotMined()).count());
+  }
+
+  @Test
+  void invalidMineCountTest()
+  {
+    assertThrows(IllegalArgumentException.class, () -> new Field(3, 3, 10));
+    assertThrows(IllegalArgumentException.class, () -> new Field(3, 3, -1));
+  }
+
+  @Test
+  void oversizedFieldTest()
+  {
+    assertThrows(IllegalArgumentException.class, () -> new Field(65536, 65536, 1));
+    assertThrows(IllegalArgumentException.class, () -> new ConcurrentField(65536, 65536, 1));
+  }
+
+  private static List<Integer> mines(Field f)
+  {
+    return f.getSquares()
+        .stream()
+        .filter(s -> s.isMined())
+        .map(s -> s.getY() * f.getWidth() + s.getX())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void cascadeDeliversOneDeltaTest()
+  {
+    Field small = new Field(3, 3, 0);
+    small.getSquare(0, 0).mine();
+    List<FieldDelta> deltas = new ArrayList<>();
+    small.registerFieldObserver(delta -> deltas.add(delta));
+    small.uncover(2, 2);
+
+    assertEquals(1, deltas.size());
+    FieldDelta delta = deltas.get(0);
+    assertEquals(8, delta.size());
+    assertEquals(0, delta.minX());
+    assertEquals(0, delta.minY());
+    assertEquals(2, delta.maxX());
+    assertEquals(2, delta.maxY());
+    assertTrue(delta.isGameOver());
+    assertTrue(delta.result().isVictorious());
+  }
+
+  @Test
+  void explosionDeltaTest()
+  {
+    List<FieldDelta> deltas = new ArrayList<>();
+    field.registerFieldObserver(delta -> deltas.add(delta));
+    Square mined = field.getSquares().stream().filter(s -> s.isMined()).findFirst().get();
+    mined.uncover();
+
+    assertEquals(1, deltas.size());
+    assertEquals(MINE_COUNT, deltas.get(0).size());
+    assertTrue(deltas.get(0).result().isDefeated());
+    assertTrue(field.getSquares().stream().filter(s -> s.isMined()).allMatch(s -> s.isExposed()));
+  }
+
+  @Test
+  void stateQueriesMatchSquaresTest()
+  {
+    Field seeded = new Field(WIDTH, HEIGHT, MINE_COUNT, new SplittableRandom(9));
+    seeded.play(Move.flag(0, 0), Move.uncover(WIDTH / 2, HEIGHT / 2), Move.uncover(1, 1));
+    for (Square square : seeded.getSquares())
+    {
+      int x = square.getX();
+      int y = square.getY();
+      assertEquals(square.isMined(), seeded.isMined(x, y));
+      assertEquals(square.isFlagged(), seeded.isFlagged(x, y));
+      assertEquals(square.isExposed(), seeded.isExposed(x, y));
+      assertEquals(square.isExploded(), seeded.isExploded(x, y));
+      assertEquals(square.surroundingMineCount(), seeded.surroundingMineCount(x, y));
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> seeded.isExposed(WIDTH, 0));
+  }
 }
@@ -11,18 +11,26 @@ import org.junit.jupiter.api.Test;
 
 class SquareTest
 {
+  private static final int SIZE = 7;
+  private Field field;
   private Square s33;
 
   @BeforeEach
   void setup()
   {
-    s33 = new Square(3, 3);
+    field = new Field(SIZE, SIZE, 0);
+    s33 = square(field, 3, 3);
+  }
+
+  private static Square square(Field field, int x, int y)
+  {
+    return field.getSquares().get(y * field.getWidth() + x);
   }
 
   @Test
   void positionTest()
   {
-    Square s = new Square(4, 5);
+    Square s = square(field, 4, 5);
     assertEquals(4, s.getX());
     assertEquals(5, s.getY());
   }
@@ -79,31 +87,31 @@ class SquareTest
   }
 
   @Test
-  void addSameColumnNeighbourTest()
+  void sameColumnNeighbourTest()
   {
-    Square s32 = new Square(3, 2);
-    assertTrue(s33.addNeighbour(s32));
+    Square s32 = square(field, 3, 2);
+    assertTrue(s33.getNeighbours().contains(s32));
   }
 
   @Test
-  void addSameRowNeighbourTest()
+  void sameRowNeighbourTest()
   {
-    Square s23 = new Square(2, 3);
-    assertTrue(s33.addNeighbour(s23));
+    Square s23 = square(field, 2, 3);
+    assertTrue(s33.getNeighbours().contains(s23));
   }
 
   @Test
-  void addDiagonalNeighbourTest()
+  void diagonalNeighbourTest()
   {
-    Square s44 = new Square(4, 4);
-    assertTrue(s33.addNeighbour(s44));
+    Square s44 = square(field, 4, 4);
+    assertTrue(s33.getNeighbours().contains(s44));
   }
 
   @Test
   void notANeighbourTest()
   {
-    Square s31 = new Square(3, 1);
-    assertFalse(s33.addNeighbour(s31));
+    Square s31 = square(field, 3, 1);
+    assertFalse(s33.getNeighbours().contains(s31));
   }
 
   @Test
@@ -127,13 +135,25 @@ class SquareTest
     assertTrue(s33.uncover());
   }
 
+  @Test
+  void explodedSquareTest()
+  {
+    Square s32 = square(field, 3, 2);
+    s33.mine();
+    s32.mine();
+    s33.uncover();
+    assertTrue(s33.isExploded());
+    assertTrue(s32.isExposed());
+    assertFalse(s32.isExploded());
+    s33.reset();
+    assertFalse(s33.isExploded());
+  }
+
   @Test
   void chainedUncoveringTest()
   {
-    Square s32 = new Square(3, 2);
-    Square s31 = new Square(3, 1);
-    s33.addNeighbour(s32);
-    s32.addNeighbour(s31);
+    Square s32 = square(field, 3, 2);
+    Square s31 = square(field, 3, 1);
     s33.uncover();
     assertTrue(s33.isExposed());
     assertTrue(s32.isExposed());
@@ -143,10 +163,8 @@ class SquareTest
   @Test
   void safeNeighbourhoodTest()
   {
-    Square s32 = new Square(3, 2);
-    Square s22 = new Square(2, 2);
-    s33.addNeighbour(s32);
-    s33.addNeighbour(s22);
+    Square s32 = square(field, 3, 2);
+    Square s22 = square(field, 2, 2);
     s33.uncover();
     assertTrue(s33.isExposed());
     assertTrue(s32.isExposed());
@@ -157,10 +175,8 @@ class SquareTest
   @Test
   void unsafeNeighbourhoodTest()
   {
-    Square s32 = new Square(3, 2);
-    Square s22 = new Square(2, 2);
-    s33.addNeighbour(s32);
-    s33.addNeighbour(s22);
+    Square s32 = square(field, 3, 2);
+    Square s22 = square(field, 2, 2);
     s22.mine();
     s33.uncover();
     assertTrue(s33.isExposed());
@@ -172,10 +188,8 @@ class SquareTest
   @Test
   void surroundingMineCountTest()
   {
-    Square s32 = new Square(3, 2);
-    Square s22 = new Square(2, 2);
-    s33.addNeighbour(s32);
-    s33.addNeighbour(s22);
+    Square s32 = square(field, 3, 2);
+    Square s22 = square(field, 2, 2);
     s22.mine();
     assertEquals(1, s33.surroundingMineCount());
     s32.mine();
@@ -185,32 +199,31 @@ class SquareTest
   @Test
   void chainedUncoveringInterruptedByFlagTest()
   {
-    Square s32 = new Square(3, 2);
-    Square s31 = new Square(3, 1);
-    s33.addNeighbour(s32);
-    s32.addNeighbour(s31);
-    s32.flipFlag();
-    s33.uncover();
-    assertTrue(s33.isExposed());
-    assertFalse(s32.isExposed());
-    assertFalse(s31.isExposed());
+    Field column = new Field(1, SIZE, 0);
+    Square s3 = square(column, 0, 3);
+    Square s2 = square(column, 0, 2);
+    Square s1 = square(column, 0, 1);
+    s2.flipFlag();
+    s3.uncover();
+    assertTrue(s3.isExposed());
+    assertFalse(s2.isExposed());
+    assertFalse(s1.isExposed());
   }
 
   @Test
   void chainedUncoveringInterruptedByMineTest()
   {
-    Square s32 = new Square(3, 2);
-    Square s31 = new Square(3, 1);
-    s31.mine();
-    Square s21 = new Square(3, 1);
-    s33.addNeighbour(s32);
-    s32.addNeighbour(s31);
-    s31.addNeighbour(s21);
-    s33.uncover();
-    assertTrue(s33.isExposed());
-    assertTrue(s32.isExposed());
-    assertFalse(s31.isExposed());
-    assertFalse(s21.isExposed());
+    Field column = new Field(1, SIZE, 0);
+    Square s3 = square(column, 0, 3);
+    Square s2 = square(column, 0, 2);
+    Square s1 = square(column, 0, 1);
+    Square s0 = square(column, 0, 0);
+    s1.mine();
+    s3.uncover();
+    assertTrue(s3.isExposed());
+    assertTrue(s2.isExposed());
+    assertFalse(s1.isExposed());
+    assertFalse(s0.isExposed());
   }
 
   @Test
@@ -0,0 +1,112 @@
+package com.rkoyanagui.minesweeper.model;
+
+import static com.rkoyanagui.minesweeper.model.FieldAssertions.assertSameField;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class TiledRevealTest
+{
+  private static ForkJoinPool pool;
+
+  @BeforeAll
+  static void startPool()
+  {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterAll
+  static void stopPool()
+  {
+    pool.shutdown();
+  }
+
+  @Test
+  void sameAsSequentialTest()
+  {
+    SplittableRandom random = new SplittableRandom(1);
+    for (double density : new double[] { 0, 0.01, 0.05, 0.1 })
+    {
+      for (int game = 0; game < 3; game++)
+      {
+        long seed = random.nextLong();
+        int mines = (int) (1000 * 700 * density);
+        Field sequential = new Field(1000, 700, mines, new SplittableRandom(seed));
+        Field tiled = new Field(1000, 700, mines, new SplittableRandom(seed));
+        tiled.setRevealPool(pool);
+
+        // Flags on safe squares stop both cascades in the same places.
+        List<Move> moves = new ArrayList<>();
+        for (int flag = 0; flag < 200; flag++)
+        {
+          moves.add(Move.flag(random.nextInt(1000), random.nextInt(700)));
+        }
+        moves.add(opening(sequential));
+
+        List<FieldDelta> sequentialDeltas = new ArrayList<>();
+        List<FieldDelta> tiledDeltas = new ArrayList<>();
+        sequential.registerFieldObserver(d -> sequentialDeltas.add(d));
+        tiled.registerFieldObserver(d -> tiledDeltas.add(d));
+        assertEquals(sequential.play(moves), tiled.play(moves));
+        assertSameField(sequential, tiled);
+        assertArrayEquals(sortedCells(sequentialDeltas), sortedCells(tiledDeltas));
+      }
+    }
+  }
+
+  @Test
+  void winsLikeSequentialTest()
+  {
+    Field field = new Field(600, 600, 0, new SplittableRandom(2));
+    field.setRevealPool(pool);
+    MoveOutcome outcome = field.play(Move.uncover(300, 300));
+    assertEquals(600 * 600, outcome.revealed());
+    assertTrue(outcome.isVictorious());
+  }
+
+  @Test
+  void smallCascadesStaySequentialTest()
+  {
+    Field field = new Field(100, 100, 0, new SplittableRandom(3));
+    field.setRevealPool(pool);
+    assertEquals(100 * 100, field.play(Move.uncover(0, 0)).revealed());
+  }
+
+  // The zero square whose cascade is largest, found on a copy so the field is left as it was.
+  private static Move opening(Field field)
+  {
+    Field copy = new Field(field.getWidth(), field.getHeight(), field.getMineCount());
+    copy.reset(field.getSeed());
+    Move best = Move.uncover(0, 0);
+    int bestSize = 0;
+    for (Square square : copy.getSquares())
+    {
+      if (!square.isExposed() && !square.isMined() && square.surroundingMineCount() == 0)
+      {
+        int size = copy.play(Move.uncover(square.getX(), square.getY())).revealed();
+        if (size > bestSize)
+        {
+          bestSize = size;
+          best = Move.uncover(square.getX(), square.getY());
+        }
+      }
+    }
+    return best;
+  }
+
+  private static int[] sortedCells(List<FieldDelta> deltas)
+  {
+    int[] cells = deltas.stream().flatMapToInt(d -> Arrays.stream(d.cells())).toArray();
+    Arrays.sort(cells);
+    return cells;
+  }
+}
@@ -0,0 +1,55 @@
+package com.rkoyanagui.minesweeper.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class SimulationRunnerTest
+{
+  @Test
+  void countsEveryGameTest()
+  {
+    SimulationResult result = new SimulationRunner(9, 9, 10).run(1000, 1);
+    assertEquals(1000, result.games());
+    assertTrue(result.wins() > 0 && result.wins() < 1000);
+    assertTrue(result.guesses() >= result.games());
+    assertTrue(result.moves() > result.guesses());
+    assertTrue(result.gamesPerSecond() > 0);
+  }
+
+  @Test
+  void sameSeedOnAnyPoolTest()
+  {
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool several = new ForkJoinPool(4);
+    try
+    {
+      SimulationResult a = new SimulationRunner(16, 16, 40, single).run(500, 7);
+      SimulationResult b = new SimulationRunner(16, 16, 40, several).run(500, 7);
+      assertEquals(a.withNanos(0), b.withNanos(0));
+    }
+    finally
+    {
+      single.shutdown();
+      several.shutdown();
+    }
+  }
+
+  @Test
+  void emptyFieldAlwaysWinsTest()
+  {
+    SimulationResult result = new SimulationRunner(5, 5, 0).run(100, 3);
+    assertEquals(1.0, result.winRate());
+    assertEquals(1.0, result.averageGuesses());
+  }
+
+  @Test
+  void noGamesTest()
+  {
+    SimulationResult result = new SimulationRunner(5, 5, 5).run(0, 3);
+    assertEquals(0, result.games());
+    assertEquals(0, result.winRate());
+  }
+}
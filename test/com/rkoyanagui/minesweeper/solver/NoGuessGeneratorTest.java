@@ -0,0 +1,72 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class NoGuessGeneratorTest
+{
+  @Test
+  void solvableWithoutGuessingTest()
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      NoGuessGenerator generator = new NoGuessGenerator(30, 16, 99, 1, pool);
+      SplittableRandom random = new SplittableRandom(2);
+      for (int board = 0; board < 5; board++)
+      {
+        int x = random.nextInt(30);
+        int y = random.nextInt(16);
+        long seed = generator.generate(x, y);
+
+        Field field = new Field(30, 16, 99);
+        field.reset(seed);
+        Solver solver = new Solver(field, new SplittableRandom(3));
+        assertEquals(0, field.getSquare(x, y).surroundingMineCount());
+        field.play(Move.uncover(x, y));
+        assertTrue(solver.solve().get().isVictorious());
+        assertEquals(0, solver.getGuesses());
+      }
+      assertTrue(generator.getCandidates() >= 5);
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void noRoomForAnOpeningTest()
+  {
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(3, 3, 6, 0));
+    NoGuessGenerator crowded = new NoGuessGenerator(3, 3, 1, 0);
+    assertThrows(IllegalArgumentException.class, () -> crowded.generate(1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(9, 9, -1, 0));
+    assertThrows(IllegalArgumentException.class, () -> new NoGuessGenerator(0, 9, 0, 0));
+    NoGuessGenerator generator = new NoGuessGenerator(9, 9, 10, 0);
+    assertThrows(IndexOutOfBoundsException.class, () -> generator.generate(9, 0));
+  }
+
+  @Test
+  void openingFitsStartSquareTest()
+  {
+    // A corner or an edge needs fewer safe squares than the middle of the board.
+    NoGuessGenerator cornered = new NoGuessGenerator(3, 3, 9 - 4, 0);
+    cornered.generate(0, 0);
+    assertThrows(IllegalArgumentException.class, () -> cornered.generate(0, 1));
+    NoGuessGenerator edged = new NoGuessGenerator(3, 3, 9 - 6, 0);
+    edged.generate(0, 1);
+    assertThrows(IllegalArgumentException.class, () -> edged.generate(1, 1));
+    // Boards too small for a full 3x3 opening, with no mines or with one left out of it.
+    new NoGuessGenerator(2, 2, 0, 0).generate(1, 1);
+    new NoGuessGenerator(1, 1, 0, 0).generate(0, 0);
+    new NoGuessGenerator(4, 1, 2, 0).generate(0, 0);
+  }
+}
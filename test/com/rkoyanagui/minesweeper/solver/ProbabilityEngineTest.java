@@ -0,0 +1,238 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.Move;
+import com.rkoyanagui.minesweeper.model.Square;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class ProbabilityEngineTest
+{
+  private static final double EPSILON = 1e-9;
+
+  @Test
+  void matchesBruteForceTest()
+  {
+    SplittableRandom random = new SplittableRandom(5);
+    int checked = 0;
+    while (checked < 50)
+    {
+      Field field = new Field(6, 5, 6, random.split());
+      ProbabilityEngine engine = new ProbabilityEngine(field);
+      field.play(Move.uncover(random.nextInt(6), random.nextInt(5)));
+      if (field.getResult().isPresent() || hidden(field).size() > 22)
+      {
+        continue;
+      }
+      double[] expected = bruteForce(field);
+      double[] actual = engine.getProbabilities();
+      for (int cell = 0; cell < expected.length; cell++)
+      {
+        assertEquals(expected[cell], actual[cell], EPSILON, "cell " + cell);
+      }
+      checked++;
+    }
+  }
+
+  @Test
+  void untouchedFieldTest()
+  {
+    Field field = new Field(10, 10, 15);
+    ProbabilityEngine engine = new ProbabilityEngine(field);
+    for (double p : engine.getProbabilities())
+    {
+      assertEquals(0.15, p, EPSILON);
+    }
+    assertEquals(0, engine.getEnumerations());
+  }
+
+  @Test
+  void flagsKeepCachedGroupsTest()
+  {
+    Field field = openedField(7);
+    ProbabilityEngine engine = new ProbabilityEngine(field);
+    double[] before = engine.getProbabilities();
+    long enumerations = engine.getEnumerations();
+    assertTrue(enumerations > 0);
+
+    Square hidden = hidden(field).get(0);
+    field.play(Move.flag(hidden.getX(), hidden.getY()));
+    assertArrayEquals(before, engine.getProbabilities());
+    assertEquals(enumerations, engine.getEnumerations());
+  }
+
+  @Test
+  void moveOnlyEnumeratesTouchedGroupsTest()
+  {
+    Field field = openedField(8);
+    ProbabilityEngine engine = new ProbabilityEngine(field);
+    engine.getProbabilities();
+    long enumerations = engine.getEnumerations();
+
+    // A safe numbered cell away from everything exposed only adds a group of its own.
+    Square lonely = field.getSquares().stream()
+        .filter(s -> s.isNotMined() && !s.isSafeNeighbourhood() && isFarFromExposed(field, s))
+        .findFirst()
+        .orElseThrow();
+    field.play(Move.uncover(lonely.getX(), lonely.getY()));
+    engine.getProbabilities();
+    assertEquals(enumerations + 1, engine.getEnumerations());
+  }
+
+  @Test
+  void keptGroupsMatchFreshEngineTest()
+  {
+    SplittableRandom random = new SplittableRandom(10);
+    Field field = openedField(10);
+    ProbabilityEngine engine = new ProbabilityEngine(field);
+    for (int move = 0; move < 120; move++)
+    {
+      if (field.getResult().isPresent() || move % 60 == 30)
+      {
+        field.reset();
+      }
+      // Skip some queries, so the groups of several moves are rebuilt at once.
+      if (move % 3 != 1)
+      {
+        assertArrayEquals(new ProbabilityEngine(field).getProbabilities(),
+            engine.getProbabilities(), EPSILON);
+      }
+      // Mostly safe cells, so the game goes on and numbers appear next to standing groups.
+      List<Square> hidden = hidden(field);
+      Square next = hidden.get(random.nextInt(hidden.size()));
+      for (int tries = 0; tries < 8 && next.isMined(); tries++)
+      {
+        next = hidden.get(random.nextInt(hidden.size()));
+      }
+      field.play(Move.uncover(next.getX(), next.getY()));
+    }
+  }
+
+  @Test
+  void certainCellsTest()
+  {
+    Field field = openedField(9);
+    ProbabilityEngine engine = new ProbabilityEngine(field);
+    double[] probabilities = engine.getProbabilities();
+    for (Square square : field.getSquares())
+    {
+      double p = probabilities[square.getY() * field.getWidth() + square.getX()];
+      assertTrue(p >= -EPSILON && p <= 1 + EPSILON);
+      if (p < EPSILON)
+      {
+        assertTrue(square.isNotMined());
+      }
+      if (p > 1 - EPSILON)
+      {
+        assertTrue(square.isMined() || square.isExposed());
+      }
+    }
+  }
+
+  // An expert field with a cascade opened somewhere in it.
+  private static Field openedField(long seed)
+  {
+    SplittableRandom random = new SplittableRandom(seed);
+    while (true)
+    {
+      Field field = new Field(30, 16, 99, random.split());
+      Square opening = field.getSquares().stream()
+          .filter(s -> s.isNotMined() && s.isSafeNeighbourhood())
+          .findFirst()
+          .orElse(null);
+      if (opening != null)
+      {
+        field.play(Move.uncover(opening.getX(), opening.getY()));
+        return field;
+      }
+    }
+  }
+
+  private static boolean isFarFromExposed(Field field, Square square)
+  {
+    for (int y = square.getY() - 3; y <= square.getY() + 3; y++)
+    {
+      for (int x = square.getX() - 3; x <= square.getX() + 3; x++)
+      {
+        if (x >= 0 && x < field.getWidth() && y >= 0 && y < field.getHeight()
+            && field.getSquare(x, y).isExposed())
+        {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static List<Square> hidden(Field field)
+  {
+    List<Square> hidden = new ArrayList<>();
+    field.forEach(s -> {
+      if (s.isNotExposed())
+      {
+        hidden.add(s);
+      }
+    });
+    return hidden;
+  }
+
+  // Tries every way to put the mines in the hidden cells and keeps those every number agrees with.
+  private static double[] bruteForce(Field field)
+  {
+    List<Square> hidden = hidden(field);
+    int width = field.getWidth();
+    double[] mined = new double[width * field.getHeight()];
+    long total = 0;
+    for (long mask = 0; mask < 1L << hidden.size(); mask++)
+    {
+      if (Long.bitCount(mask) != field.getMineCount() || !agrees(field, hidden, mask))
+      {
+        continue;
+      }
+      total++;
+      for (int h = 0; h < hidden.size(); h++)
+      {
+        if ((mask & 1L << h) != 0)
+        {
+          mined[hidden.get(h).getY() * width + hidden.get(h).getX()]++;
+        }
+      }
+    }
+    for (int cell = 0; cell < mined.length; cell++)
+    {
+      mined[cell] /= total;
+    }
+    return mined;
+  }
+
+  private static boolean agrees(Field field, List<Square> hidden, long mask)
+  {
+    for (Square square : field.getSquares())
+    {
+      if (square.isNotExposed())
+      {
+        continue;
+      }
+      int mines = 0;
+      for (Square neighbour : square.getNeighbours())
+      {
+        int h = hidden.indexOf(neighbour);
+        if (h >= 0 && (mask & 1L << h) != 0)
+        {
+          mines++;
+        }
+      }
+      if (mines != square.surroundingMineCount())
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,68 @@
+package com.rkoyanagui.minesweeper.solver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.rkoyanagui.minesweeper.model.Field;
+import com.rkoyanagui.minesweeper.model.ResultEvent;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class SolverTest
+{
+  private static final int GAMES = 200;
+
+  @Test
+  void playsToCompletionTest()
+  {
+    Field field = new Field(9, 9, 10, new SplittableRandom(1));
+    Solver solver = new Solver(field, new SplittableRandom(2));
+    Optional<ResultEvent> result = solver.solve();
+    assertTrue(result.isPresent());
+    assertTrue(solver.getGuesses() >= 1);
+  }
+
+  @Test
+  void flagsOnlyMinesTest()
+  {
+    SplittableRandom random = new SplittableRandom(3);
+    for (int game = 0; game < GAMES; game++)
+    {
+      Field field = new Field(16, 16, 40, random.split());
+      new Solver(field, random.split()).solve();
+      assertTrue(field.getSquares().stream().filter(s -> s.isFlagged()).allMatch(s -> s.isMined()));
+    }
+  }
+
+  @Test
+  void onlyGuessesLoseTest()
+  {
+    SplittableRandom random = new SplittableRandom(4);
+    int wins = 0;
+    for (int game = 0; game < GAMES; game++)
+    {
+      Field field = new Field(9, 9, 10, random.split());
+      Solver solver = new Solver(field, random.split());
+      long guessesBefore = 0;
+      while (true)
+      {
+        guessesBefore = solver.getGuesses();
+        if (!solver.step())
+        {
+          break;
+        }
+      }
+      ResultEvent result = field.getResult().orElseThrow();
+      if (result.isVictorious())
+      {
+        wins++;
+      }
+      else
+      {
+        assertEquals(guessesBefore + 1, solver.getGuesses());
+      }
+    }
+    assertTrue(wins > GAMES / 2, wins + " wins out of " + GAMES);
+  }
+}